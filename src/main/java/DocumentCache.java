@@ -0,0 +1,116 @@
+package com.nudge;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of parsed save documents, bounded by the on-disk size of the files
+ * they were read from. Every entry remembers the modification time and length
+ * of its files and is only served while those still match, so edits made
+ * outside the game are picked up on the next read.
+ */
+class DocumentCache {
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class Entry {
+        final Object value;
+        final long[] stamp;
+        final long bytes;
+
+        Entry(Object value, long[] stamp, long bytes) {
+            this.value = value;
+            this.stamp = stamp;
+            this.bytes = bytes;
+        }
+    }
+
+    DocumentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Modification time and length of each file; missing files stamp as zeros
+    static long[] stamp(File... files) {
+        long[] stamp = new long[files.length * 2];
+        for (int i = 0; i < files.length; i++) {
+            if (files[i] != null) {
+                stamp[i * 2] = files[i].lastModified();
+                stamp[i * 2 + 1] = files[i].length();
+            }
+        }
+        return stamp;
+    }
+
+    // Total on-disk size recorded in a stamp, used as the entry's weight
+    static long bytes(long[] stamp) {
+        long bytes = 0;
+        for (int i = 1; i < stamp.length; i += 2) {
+            bytes += stamp[i];
+        }
+        return bytes;
+    }
+
+    synchronized Object get(String key, long[] stamp) {
+        Entry entry = entries.get(key);
+        if (entry != null && Arrays.equals(entry.stamp, stamp)) {
+            hits.incrementAndGet();
+            return entry.value;
+        }
+        if (entry != null) {
+            // The file changed underneath us
+            remove(key);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    synchronized void put(String key, long[] stamp, Object value) {
+        remove(key);
+        long bytes = bytes(stamp);
+        if (bytes > maxBytes) {
+            return;
+        }
+        entries.put(key, new Entry(value, stamp, bytes));
+        totalBytes += bytes;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    synchronized long size() {
+        return totalBytes;
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    long evictions() {
+        return evictions.get();
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.nudge;
+
+/**
+ * Monotonic game clock in epoch milliseconds. It starts at the wall-clock time
+ * it was created and then advances with System.nanoTime, so changing the
+ * system clock mid-session cannot move game time backwards. A time scale above
+ * 1 makes game time pass faster, e.g. 3600 for an hour of pet life per second.
+ *
+ * The shared clock is scaled by -Dnudge.time.scale (default 1).
+ */
+public final class GameClock {
+    private static final GameClock SYSTEM = new GameClock(
+        Double.parseDouble(System.getProperty("nudge.time.scale", "1")));
+
+    private final double scale;
+    private final long epochAnchor;
+    private final long nanoAnchor;
+
+    public GameClock(double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("Time scale must be positive: " + scale);
+        }
+        this.scale = scale;
+        this.epochAnchor = System.currentTimeMillis();
+        this.nanoAnchor = System.nanoTime();
+    }
+
+    public static GameClock system() {
+        return SYSTEM;
+    }
+
+    public long millis() {
+        return epochAnchor + (long) ((System.nanoTime() - nanoAnchor) * scale / 1_000_000);
+    }
+
+    public double getScale() {
+        return scale;
+    }
+}
@@ -1,15 +1,15 @@
 package com.nudge;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -21,45 +21,50 @@ import javafx.util.Duration;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 
-import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class GamePage {
     private String playerId;
-    private Map<String, Object> playerData;
-    private Map<String, Object> petData;
-    private Map<String, ProgressBar> vitalBars = new HashMap<>();
+    private PlayerProfile playerData;
+    private PetState petData;
+    private ScoreLedger scoreLedger;
+    private PetSimulation simulation;
+    private final PetViewModel view = new PetViewModel();
     private List<String> inventory;
-    private String currentPetState = "normal";
     private ImageView petImageView;
+    private SpriteAnimator petAnimator;
+    private CompletableFuture<SpriteSheet> pendingSprite; // the sprite the pet should show
     private MediaPlayer backgroundMusic;
-    private static final double HEALTH_PENALTY = 20.0;
-    private static final double HAPPINESS_THRESHOLD = 50.0;
-    private static final double SLEEP_RECOVERY_RATE = 5.0;
-    private static final double HUNGER_HEALTH_PENALTY = 2.0;
-    private static final double HUNGER_HAPPINESS_PENALTY = 3.0;
-    private static final long VET_COOLDOWN = 300000; // 5 minutes in milliseconds
-    private static final long PLAY_COOLDOWN = 180000; // 3 minutes in milliseconds
-    private static final long REWARD_INTERVAL = 300000; // 5 minutes in milliseconds
-    private long lastRewardTime;
-    private Map<String, Long> lastCommandTime = new HashMap<>();
+    private static final PseudoClass WARNING = PseudoClass.getPseudoClass("warning");
+    private static final double WARNING_LEVEL = 0.25; // vitals below this show as warnings
+    private static final int AUTOSAVE_INTERVAL = 10; // seconds between background saves
+    private static final long UI_REFRESH_MILLIS = 2000; // real time between redraws while visible
+    private static final long MIN_WAKE_MILLIS = 16; // about one frame, so fast clocks cannot spin
+    // -Dnudge.offline=true keeps the pet's needs running while the game is closed
+    private static final boolean OFFLINE_CATCH_UP = Boolean.getBoolean("nudge.offline");
+    private final GameClock clock;
     private long sessionStartTime;
     private long totalPlayTime;
-    private Timeline timeTracker;
+    private long playTimeAtStart;
+    private Stage stage;
+    private PauseTransition gameLoop;
+    private final ChangeListener<Boolean> iconifiedListener = (obs, wasIconified, iconified) -> scheduleNextWake();
+    private long lastSaveNanos;
     
     // Expand food and gift properties with descriptions and icons
     private static final Map<String, ItemProperties> FOOD_ITEMS = Map.of(
-        "Basic Food", new ItemProperties("🥫", 30, "Simple pet food that provides basic nutrition"),
-        "Premium Food", new ItemProperties("🍖", 50, "High-quality food that satisfies hunger well"),
-        "Deluxe Food", new ItemProperties("🍗", 80, "Gourmet food that fully satisfies your pet")
+        "Basic Food", new ItemProperties("🥫", "Basic Food", "Simple pet food that provides basic nutrition"),
+        "Premium Food", new ItemProperties("🍖", "Premium Food", "High-quality food that satisfies hunger well"),
+        "Deluxe Food", new ItemProperties("🍗", "Deluxe Food", "Gourmet food that fully satisfies your pet")
     );
     
     private static final Map<String, ItemProperties> GIFT_ITEMS = Map.of(
-        "Basic Toy", new ItemProperties("🎾", 20, "A simple toy for basic play"),
-        "Premium Toy", new ItemProperties("🧸", 35, "A quality toy that brings more joy"),
-        "Deluxe Toy", new ItemProperties("🎮", 60, "A special toy that makes your pet very happy")
+        "Basic Toy", new ItemProperties("🎾", "Basic Toy", "A simple toy for basic play"),
+        "Premium Toy", new ItemProperties("🧸", "Premium Toy", "A quality toy that brings more joy"),
+        "Deluxe Toy", new ItemProperties("🎮", "Deluxe Toy", "A special toy that makes your pet very happy")
     );
 
     private static class ItemProperties {
@@ -67,15 +72,28 @@ public class GamePage {
         final int value;
         final String description;
 
-        ItemProperties(String icon, int value, String description) {
+        ItemProperties(String icon, String item, String description) {
             this.icon = icon;
-            this.value = value;
+            // Effects are part of the game rules
+            PetSimulation.Item effect = PetSimulation.FOOD_ITEMS.containsKey(item)
+                ? PetSimulation.FOOD_ITEMS.get(item) : PetSimulation.GIFT_ITEMS.get(item);
+            this.value = effect.value;
             this.description = description;
         }
     }
 
+    public GamePage() {
+        this(GameClock.system());
+    }
+
+    // A scaled clock lets a day of pet life pass in minutes
+    public GamePage(GameClock clock) {
+        this.clock = clock;
+    }
+
     public Scene createScene(Stage primaryStage, String playerId, String petName, String petType) {
         this.playerId = playerId;
+        this.stage = primaryStage;
         
         // Try to load existing game data first, create new game if it doesn't exist
         try {
@@ -90,6 +108,12 @@ public class GamePage {
             }
         }
 
+        // Decode the pet's sprites for every state while the screen is built
+        SpriteCache.shared().preload(petData.getPetType());
+
+        // Fill the properties the controls bind to
+        view.update(simulation);
+
         // Initialize and start background music
         initializeBackgroundMusic();
 
@@ -114,7 +138,8 @@ public class GamePage {
 
         // Create the scene
         Scene scene = new Scene(root, 1280, 800);
-        
+        scene.getStylesheets().add(getClass().getResource("/game.css").toExternalForm());
+
         // Add keyboard shortcuts for inventory
         scene.setOnKeyPressed(e -> {
             switch (e.getCode()) {
@@ -132,9 +157,45 @@ public class GamePage {
             }
         });
 
+        // Refresh the UI whenever the simulation changes
+        simulation.addListener(new PetSimulation.Listener() {
+            @Override
+            public void stateChanged(PetSimulation.State oldState, PetSimulation.State newState) {
+                updatePetSprite();
+                // Which commands the pet accepts depends only on its state
+                view.update(simulation);
+            }
+
+            @Override
+            public void vitalsChanged() {
+                view.update(simulation);
+            }
+
+            @Override
+            public void rewardGiven(String item) {
+                saveGame();
+                showRewardNotification();
+                updateInventoryDisplay();
+            }
+
+            @Override
+            public void died() {
+                handleDeath();
+            }
+
+            @Override
+            public void scheduleChanged() {
+                scheduleNextWake();
+            }
+        });
+
         // Start the game update timer
         startGameLoop();
 
+        // Closing the window must save as the exit button does; the shutdown
+        // hook only flushes saves that were already queued
+        primaryStage.setOnCloseRequest(e -> leaveGame());
+
         return scene;
     }
 
@@ -166,48 +227,33 @@ public class GamePage {
         statsBox.setStyle("-fx-background-color: white; -fx-border-color: black; -fx-border-width: 1px;");
 
         // Score
-        Label scoreLabel = new Label("Score: " + petData.get("score"));
+        Label scoreLabel = new Label();
+        scoreLabel.textProperty().bind(view.scoreProperty().asString("Score: %d"));
         scoreLabel.setFont(Font.font("System", FontWeight.BOLD, 18));
+        statsBox.getChildren().add(scoreLabel);
 
         // Vital bars
-        String[] vitals = {"Health", "Sleep", "Fullness", "Happiness"};
-        for (String vital : vitals) {
-            VBox vitalBox = new VBox(5);
-            Label vitalLabel = new Label(vital);
-            ProgressBar vitalBar = new ProgressBar();
-            vitalBar.setPrefWidth(200);
-            double value = ((Number) petData.get(vital.toLowerCase() + "_level")).doubleValue() / 100.0;
-            vitalBar.setProgress(value);
-            updateVitalBarColor(vitalBar, value);
-            vitalBars.put(vital.toLowerCase(), vitalBar);
-            vitalBox.getChildren().addAll(vitalLabel, vitalBar);
-            statsBox.getChildren().add(vitalBox);
-        }
+        createVitalBar(statsBox, "Health", view.healthProperty());
+        createVitalBar(statsBox, "Sleep", view.sleepProperty());
+        createVitalBar(statsBox, "Fullness", view.fullnessProperty());
+        createVitalBar(statsBox, "Happiness", view.happinessProperty());
 
-        statsBox.getChildren().add(0, scoreLabel);
         return statsBox;
     }
 
-    private void updateVitalBarColor(ProgressBar bar, double value) {
-        if (value < 0.25) {
-            bar.setStyle("-fx-accent: #ff0000;"); // Red for warning
-        } else {
-            bar.setStyle("-fx-accent: #0000ff;"); // Blue for normal
-        }
-    }
-
-    private void updateVitalBars() {
-        // Update score label
-        VBox statsBox = (VBox) ((BorderPane) petImageView.getScene().getRoot()).getLeft();
-        Label scoreLabel = (Label) statsBox.getChildren().get(0); // Score label is first child
-        scoreLabel.setText("Score: " + petData.get("score"));
-
-        // Update vital bars
-        for (Map.Entry<String, ProgressBar> entry : vitalBars.entrySet()) {
-            double value = ((Number) petData.get(entry.getKey() + "_level")).doubleValue() / 100.0;
-            entry.getValue().setProgress(value);
-            updateVitalBarColor(entry.getValue(), value);
-        }
+    private void createVitalBar(VBox statsBox, String vital, ReadOnlyDoubleProperty level) {
+        VBox vitalBox = new VBox(5);
+        Label vitalLabel = new Label(vital);
+        ProgressBar vitalBar = new ProgressBar();
+        vitalBar.setPrefWidth(200);
+        vitalBar.getStyleClass().add("vital-bar");
+        vitalBar.progressProperty().bind(level);
+        // Red while low (see game.css); only reapplies styles when the threshold is crossed
+        vitalBar.pseudoClassStateChanged(WARNING, level.get() < WARNING_LEVEL);
+        level.addListener((obs, oldLevel, newLevel) ->
+            vitalBar.pseudoClassStateChanged(WARNING, newLevel.doubleValue() < WARNING_LEVEL));
+        vitalBox.getChildren().addAll(vitalLabel, vitalBar);
+        statsBox.getChildren().add(vitalBox);
     }
 
     private VBox createFunctionsBox() {
@@ -228,91 +274,70 @@ public class GamePage {
             vetButton, playButton, exerciseButton
         );
 
-        updateCommandAvailability(functionsBox);
         return functionsBox;
     }
 
     private Button createCommandButton(String command, String icon) {
+        PetSimulation.Command cmd = PetSimulation.Command.fromLabel(command);
         Button button = new Button(icon + " " + command);
-        button.setStyle("-fx-min-width: 120px; -fx-min-height: 40px; -fx-font-size: 14px;");
-        
-        // Add tooltip with cooldown info for relevant commands
-        if (command.equals("Vet") || command.equals("Play")) {
+        button.getStyleClass().add("command-button");
+        button.disableProperty().bind(view.availableProperty(cmd).not());
+
+        // Add tooltip with cooldown info for relevant commands, worked out when it is shown
+        if (cmd == PetSimulation.Command.VET || cmd == PetSimulation.Command.PLAY) {
             Tooltip tooltip = new Tooltip("Available");
+            tooltip.setOnShowing(e -> updateCooldownTooltip(tooltip, cmd));
             button.setTooltip(tooltip);
         }
-        
+
         button.setOnAction(e -> handleCommand(command));
         return button;
     }
 
     private void handleCommand(String command) {
-        if (!isCommandAvailable(command)) {
+        // The loop only wakes for events, so bring the pet up to now before acting
+        updateTimeTracking();
+        PetSimulation.Command cmd = PetSimulation.Command.fromLabel(command);
+        String reason = simulation.unavailableReason(cmd);
+        if (reason != null) {
+            showError(reason);
             return;
         }
 
-        // Get current score
-        int currentScore = ((Number) petData.get("score")).intValue();
-
-        switch (command.toLowerCase()) {
-            case "go to bed":
-                currentPetState = "sleeping";
-                petData.put("sleep_level", 0.0); // Start sleep recovery
-                currentScore += 5; // Small bonus for helping pet sleep
+        switch (cmd) {
+            case GO_TO_BED:
+                simulation.goToBed();
                 break;
                 
-            case "feed":
+            case FEED:
                 showFoodSelection();
                 break;
                 
-            case "give gift":
+            case GIVE_GIFT:
                 showGiftSelection();
                 break;
                 
-            case "vet":
-                if (isOnCooldown("vet")) {
-                    showCooldownMessage("Vet");
+            case VET:
+                if (simulation.cooldownRemaining(cmd) > 0) {
+                    showCooldownMessage(cmd);
                     return;
                 }
-                petData.put("health_level", Math.min(100,
-                    ((Number) petData.get("health_level")).doubleValue() + 40));
-                lastCommandTime.put("vet", System.currentTimeMillis());
-                currentScore -= 10; // Penalty for needing vet care
+                simulation.vet();
                 break;
                 
-            case "play":
-                if (isOnCooldown("play")) {
-                    showCooldownMessage("Play");
+            case PLAY:
+                if (simulation.cooldownRemaining(cmd) > 0) {
+                    showCooldownMessage(cmd);
                     return;
                 }
-                double newHappiness = Math.min(100,
-                    ((Number) petData.get("happiness_level")).doubleValue() + 25);
-                petData.put("happiness_level", newHappiness);
-                lastCommandTime.put("play", System.currentTimeMillis());
-                currentScore += 15; // Bonus for playing with pet
-                if (newHappiness >= HAPPINESS_THRESHOLD && currentPetState.equals("angry")) {
-                    currentPetState = "normal";
-                }
+                simulation.play();
                 break;
                 
-            case "exercise":
-                double currentSleep = ((Number) petData.get("sleep_level")).doubleValue();
-                double currentFullness = ((Number) petData.get("fullness_level")).doubleValue();
-                double currentHealth = ((Number) petData.get("health_level")).doubleValue();
-                
-                petData.put("sleep_level", Math.max(0, currentSleep - 10));
-                petData.put("fullness_level", Math.max(0, currentFullness - 15));
-                petData.put("health_level", Math.min(100, currentHealth + 15));
-                currentScore += 10; // Bonus for exercising pet
+            case EXERCISE:
+                simulation.exercise();
                 break;
         }
-        
-        // Update score in petData
-        petData.put("score", currentScore);
-        
-        updateVitalBars();
-        updatePetSprite();
-        updateCommandAvailability((VBox) ((BorderPane) petImageView.getScene().getRoot()).getRight());
+
         saveGame();
     }
 
@@ -333,36 +358,10 @@ public class GamePage {
         dialog.setContentText("Available food:");
 
         dialog.showAndWait().ifPresent(food -> {
-            int increase = FOOD_ITEMS.get(food).value;
-            double currentFullness = ((Number) petData.get("fullness_level")).doubleValue();
-            petData.put("fullness_level", Math.min(100, currentFullness + increase));
-            
-            // Remove the used food item
-            inventory.remove(food);
-            petData.put("inventory", inventory);
-            
-            // Update score based on food type
-            int currentScore = ((Number) petData.get("score")).intValue();
-            switch (food) {
-                case "Basic Food":
-                    currentScore += 5;
-                    break;
-                case "Premium Food":
-                    currentScore += 10;
-                    break;
-                case "Deluxe Food":
-                    currentScore += 15;
-                    break;
-            }
-            petData.put("score", currentScore);
-            
-            if (currentPetState.equals("hungry")) {
-                currentPetState = "normal";
+            updateTimeTracking(); // the dialog may have been open a while
+            if (simulation.feed(food)) {
+                saveGame();
             }
-            
-            updateVitalBars();
-            updatePetSprite();
-            saveGame();
         });
     }
 
@@ -383,106 +382,28 @@ public class GamePage {
         dialog.setContentText("Available gifts:");
 
         dialog.showAndWait().ifPresent(gift -> {
-            int increase = GIFT_ITEMS.get(gift).value;
-            double currentHappiness = ((Number) petData.get("happiness_level")).doubleValue();
-            petData.put("happiness_level", Math.min(100, currentHappiness + increase));
-            
-            // Remove the used gift
-            inventory.remove(gift);
-            petData.put("inventory", inventory);
-            
-            // Update score based on gift type
-            int currentScore = ((Number) petData.get("score")).intValue();
-            switch (gift) {
-                case "Basic Toy":
-                    currentScore += 8;
-                    break;
-                case "Premium Toy":
-                    currentScore += 15;
-                    break;
-                case "Deluxe Toy":
-                    currentScore += 25;
-                    break;
-            }
-            petData.put("score", currentScore);
-            
-            if (currentHappiness >= HAPPINESS_THRESHOLD && currentPetState.equals("angry")) {
-                currentPetState = "normal";
-            }
-            
-            updateVitalBars();
-            updatePetSprite();
-            saveGame();
-        });
-    }
-
-    private boolean isCommandAvailable(String command) {
-        // Dead state: No commands
-        if (currentPetState.equals("dead")) {
-            showError("Your pet has passed away. Please start a new game or load a saved game.");
-            return false;
-        }
-
-        // Sleeping state: No commands
-        if (currentPetState.equals("sleeping") && !command.equalsIgnoreCase("go to bed")) {
-            showError("Your pet is sleeping and cannot perform actions right now.");
-            return false;
-        }
-
-        // Angry state: Only Give Gift and Play
-        if (currentPetState.equals("angry") && 
-            !command.equalsIgnoreCase("give gift") && 
-            !command.equalsIgnoreCase("play")) {
-            showError("Your pet is angry and will only respond to gifts or play!");
-            return false;
-        }
-
-        // Hungry and Normal states: All commands available
-        return true;
-    }
-
-    private void updateCommandAvailability(VBox functionsBox) {
-        functionsBox.getChildren().forEach(node -> {
-            if (node instanceof Button) {
-                Button button = (Button) node;
-                String command = button.getText().substring(2); // Remove emoji
-                
-                // Update button state based on availability
-                button.setDisable(!isCommandAvailable(command));
-                
-                // Update cooldown tooltips
-                if (command.equals("Vet") || command.equals("Play")) {
-                    updateCooldownTooltip(button, command.toLowerCase());
-                }
+            updateTimeTracking();
+            if (simulation.giveGift(gift)) {
+                saveGame();
             }
         });
     }
 
-    private boolean isOnCooldown(String command) {
-        long lastUsed = lastCommandTime.getOrDefault(command, 0L);
-        long cooldown = command.equals("vet") ? VET_COOLDOWN : PLAY_COOLDOWN;
-        return System.currentTimeMillis() - lastUsed < cooldown;
-    }
-
-    private void updateCooldownTooltip(Button button, String command) {
-        long lastUsed = lastCommandTime.getOrDefault(command, 0L);
-        long cooldown = command.equals("vet") ? VET_COOLDOWN : PLAY_COOLDOWN;
-        long timeLeft = (lastUsed + cooldown - System.currentTimeMillis()) / 1000;
+    private void updateCooldownTooltip(Tooltip tooltip, PetSimulation.Command command) {
+        long timeLeft = simulation.cooldownRemaining(command) / 1000;
         
         if (timeLeft > 0) {
-            button.getTooltip().setText(String.format("Available in %d seconds", timeLeft));
+            tooltip.setText(String.format("Available in %d seconds", timeLeft));
         } else {
-            button.getTooltip().setText("Available");
+            tooltip.setText("Available");
         }
     }
 
-    private void showCooldownMessage(String command) {
-        long lastUsed = lastCommandTime.get(command.toLowerCase());
-        long cooldown = command.equals("Vet") ? VET_COOLDOWN : PLAY_COOLDOWN;
-        long timeLeft = (lastUsed + cooldown - System.currentTimeMillis()) / 1000;
+    private void showCooldownMessage(PetSimulation.Command command) {
+        long timeLeft = simulation.cooldownRemaining(command) / 1000;
         
         showError(String.format("%s command is on cooldown. Available in %d seconds.", 
-            command, timeLeft));
+            command.getLabel(), timeLeft));
     }
 
     private VBox createPetDisplay() {
@@ -497,6 +418,7 @@ public class GamePage {
         petContainer.setPrefSize(500, 500); // Larger container
 
         petImageView = new ImageView();
+        petAnimator = new SpriteAnimator(petImageView);
         updatePetSprite();
 
         // Set the size of the pet image
@@ -520,59 +442,29 @@ public class GamePage {
         return petBox;
     }
 
+    // Shows the state's sprite, or the placeholder until it has been decoded
     private void updatePetSprite() {
-        try {
-            String petType = (String) petData.get("pet_type");
-            String statePrefix = currentPetState.equals("normal") ? "" : "_" + currentPetState;
-            
-            // Try different possible image paths
-            String[] possiblePaths = {
-                String.format("src/main/java/images/%s%s.png", petType, statePrefix),
-                String.format("src/main/resources/images/%s%s.png", petType, statePrefix),
-                String.format("images/%s%s.png", petType, statePrefix)
-            };
-            
-            Image image = null;
-            for (String path : possiblePaths) {
-                File imageFile = new File(path);
-                if (imageFile.exists()) {
-                    image = new Image(imageFile.toURI().toString());
-                    break;
-                }
+        SpriteCache sprites = SpriteCache.shared();
+        String petType = petData.getPetType();
+        CompletableFuture<SpriteSheet> sprite = sprites.sprite(petType, simulation.getState());
+        pendingSprite = sprite;
+        SpriteSheet cached = sprite.isDone() && !sprite.isCompletedExceptionally() ? sprite.join() : null;
+        if (cached != null) {
+            petAnimator.show(cached);
+            return;
+        }
+        petAnimator.show(sprites.placeholder(petType));
+        sprite.whenComplete((sheet, error) -> Platform.runLater(() -> {
+            if (pendingSprite != sprite) {
+                return; // the pet changed state again meanwhile
             }
-            
-            if (image == null) {
-                // If no image found, create a placeholder
-                Rectangle placeholder = new Rectangle(400, 400);
-                placeholder.setFill(Color.LIGHTGRAY);
-                placeholder.setStroke(Color.BLACK);
-                placeholder.setStrokeWidth(2);
-                
-                // Create a text label for the pet type
-                Label textLabel = new Label(petType);
-                textLabel.setStyle("-fx-font-size: 24px; -fx-font-weight: bold;");
-                
-                // Create a StackPane to hold both
-                StackPane placeholderPane = new StackPane(placeholder, textLabel);
-                image = placeholderPane.snapshot(null, null);
+            if (error != null) {
+                error.printStackTrace();
+                petAnimator.show(sprites.placeholder("Error loading image"));
+            } else if (sheet != null) {
+                petAnimator.show(sheet);
             }
-            
-            petImageView.setImage(image);
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            // Create a placeholder if there's an error
-            Rectangle placeholder = new Rectangle(400, 400);
-            placeholder.setFill(Color.LIGHTGRAY);
-            placeholder.setStroke(Color.BLACK);
-            placeholder.setStrokeWidth(2);
-            
-            Label errorLabel = new Label("Error loading image");
-            errorLabel.setStyle("-fx-font-size: 24px; -fx-font-weight: bold;");
-            
-            StackPane placeholderPane = new StackPane(placeholder, errorLabel);
-            petImageView.setImage(placeholderPane.snapshot(null, null));
-        }
+        }));
     }
 
     private HBox createBottomBar(Stage primaryStage) {
@@ -583,8 +475,7 @@ public class GamePage {
         // Exit button
         Button exitButton = new Button("exit");
         exitButton.setOnAction(e -> {
-            stopBackgroundMusic(); // Stop music before exiting
-            saveGame();
+            leaveGame();
             Scene mainMenuScene = new mainmenu().createScene(primaryStage);
             primaryStage.setScene(mainMenuScene);
         });
@@ -592,7 +483,11 @@ public class GamePage {
         // Save button
         Button saveButton = new Button("Save Game");
         saveButton.setOnAction(e -> {
+            updateTimeTracking();
             saveGame();
+            if (!flushSaves()) {
+                return;
+            }
             // Show confirmation dialog
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Game Saved");
@@ -677,174 +572,132 @@ public class GamePage {
     }
 
     private void createNewGame(String petName, String petType) throws IOException {
-        // Create player data
-        playerData = new HashMap<>();
-        playerData.put("player_id", playerId);
-        playerData.put("username", petName);
-        playerData.put("account_type", "child");
-        playerData.put("login_streak", 1);
-        playerData.put("achievements", new ArrayList<>());
-        playerData.put("creation_date", LocalDateTime.now().toString());
-        Map<String, Boolean> settings = new HashMap<>();
-        settings.put("sound_enabled", true);
-        settings.put("parental_controls", false);
-        playerData.put("settings", settings);
-        
-        // Create pet data
-        petData = new HashMap<>();
-        petData.put("player_id", playerId);
-        petData.put("pet_name", petName);
-        petData.put("pet_type", petType);
-        petData.put("score", 0);
-        petData.put("health_level", 100);
-        petData.put("sleep_level", 100);
-        petData.put("fullness_level", 100);
-        petData.put("happiness_level", 100);
-        petData.put("last_fed", LocalDateTime.now().toString());
-        petData.put("last_slept", LocalDateTime.now().toString());
-        inventory = new ArrayList<>();
-        // Add starting items
-        addItemToInventory("Basic Food", 3);
-        addItemToInventory("Premium Food", 2);
-        addItemToInventory("Basic Toy", 2);
-        addItemToInventory("Premium Toy", 1);
-        petData.put("inventory", inventory);
-        
-        // Initialize reward timer
-        lastRewardTime = System.currentTimeMillis();
-        petData.put("last_reward_time", lastRewardTime);
-
-        // Initialize command cooldowns
-        lastCommandTime.put("vet", 0L);
-        lastCommandTime.put("play", 0L);
+        playerData = PlayerProfile.newChild(playerId, petName);
+        sessionStartTime = clock.millis();
+        petData = PetSimulation.newPet(playerId, petName, petType, sessionStartTime);
+        inventory = petData.getInventory();
 
         // Initialize time tracking
-        sessionStartTime = System.currentTimeMillis();
         totalPlayTime = 0;
-        petData.put("total_play_time", totalPlayTime);
-        petData.put("last_session_start", sessionStartTime);
+        playTimeAtStart = 0;
+        petData.setTotalPlayTime(totalPlayTime);
+        petData.setLastSessionStart(sessionStartTime);
+
+        scoreLedger = new ScoreLedger(playerId);
 
         // Save initial data
         JsonManager.savePlayerData(playerData);
         JsonManager.savePetData(petData);
+        JsonManager.saveScoreLedger(scoreLedger);
+        simulation = createSimulation(sessionStartTime);
     }
 
     private void loadExistingGame(String playerId) throws IOException {
         // Load existing player and pet data
         playerData = JsonManager.loadPlayerData(playerId);
         petData = JsonManager.loadPetData(playerId);
-        inventory = (List<String>) petData.get("inventory");
         
         if (playerData == null || petData == null) {
             throw new IOException("Failed to load game data");
         }
-        lastRewardTime = ((Number) petData.getOrDefault("last_reward_time", 0L)).longValue();
+        inventory = petData.getInventory();
+        loadScoreLedger();
 
         // Load time tracking data
-        totalPlayTime = ((Number) petData.getOrDefault("total_play_time", 0L)).longValue();
-        sessionStartTime = System.currentTimeMillis();
-        petData.put("last_session_start", sessionStartTime);
+        totalPlayTime = petData.getTotalPlayTime();
+        playTimeAtStart = totalPlayTime;
+        sessionStartTime = clock.millis();
+
+        long lastSeen = petData.getLastSessionStart();
+        if (OFFLINE_CATCH_UP && lastSeen > 0 && lastSeen < sessionStartTime) {
+            // Let the pet live through the time the game was closed
+            simulation = createSimulation(lastSeen);
+            simulation.catchUp(sessionStartTime - lastSeen);
+        } else {
+            simulation = createSimulation(sessionStartTime);
+        }
+        petData.setLastSessionStart(sessionStartTime);
     }
 
-    private void startGameLoop() {
-        // Start time tracking
-        timeTracker = new Timeline(
-            new KeyFrame(Duration.seconds(1), event -> {
-                updateVitals();
-                checkAndGiveReward();
-                updateTimeTracking();
-                saveGame();
-            })
-        );
-        timeTracker.setCycleCount(Animation.INDEFINITE);
-        timeTracker.play();
+    // Each session gets its own seed so a recording of it can be replayed exactly
+    private PetSimulation createSimulation(long startTime) {
+        PetSimulation created = new PetSimulation(petData, scoreLedger, startTime, new Random().nextLong());
+        if (SessionRecorder.ENABLED) {
+            try {
+                created.startRecording(new SessionRecorder(JsonManager.recordingFile(playerId, startTime)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return created;
     }
 
-    private void updateTimeTracking() {
-        long currentTime = System.currentTimeMillis();
-        long sessionTime = currentTime - sessionStartTime;
-        totalPlayTime += sessionTime;
-        sessionStartTime = currentTime;
-        petData.put("total_play_time", totalPlayTime);
-        petData.put("last_session_start", sessionStartTime);
-    }
+    private void startGameLoop() {
+        lastSaveNanos = System.nanoTime();
+        gameLoop = new PauseTransition();
+        gameLoop.setOnFinished(event -> {
+            updateTimeTracking();
 
-    private void updateVitals() {
-        // Get current values
-        double health = ((Number) petData.get("health_level")).doubleValue();
-        double sleep = ((Number) petData.get("sleep_level")).doubleValue();
-        double fullness = ((Number) petData.get("fullness_level")).doubleValue();
-        double happiness = ((Number) petData.get("happiness_level")).doubleValue();
-
-        // Handle sleep state
-        if (currentPetState.equals("sleeping")) {
-            sleep = Math.min(100, sleep + SLEEP_RECOVERY_RATE);
-            if (sleep >= 100) {
-                currentPetState = "normal";
-                updatePetSprite();
-            }
-        } else {
-            sleep = Math.max(0, sleep - 1);
-            if (sleep <= 0 && !currentPetState.equals("dead")) {
-                health = Math.max(0, health - HEALTH_PENALTY);
-                currentPetState = "sleeping";
-                updatePetSprite();
+            // Vitals change on every wake, so only persist them periodically
+            if (simulation.isDirty() && System.nanoTime() - lastSaveNanos >= AUTOSAVE_INTERVAL * 1_000_000_000L) {
+                saveGame();
             }
-        }
+            scheduleNextWake();
+        });
+        stage.iconifiedProperty().addListener(iconifiedListener);
+        scheduleNextWake();
+    }
 
-        // Handle hunger state
-        if (fullness <= 0 && !currentPetState.equals("dead") && !currentPetState.equals("sleeping")) {
-            health = Math.max(0, health - HUNGER_HEALTH_PENALTY);
-            happiness = Math.max(0, happiness - HUNGER_HAPPINESS_PENALTY);
-            currentPetState = "hungry";
-            updatePetSprite();
-        } else if (fullness > 0 && currentPetState.equals("hungry")) {
-            currentPetState = "normal";
-            updatePetSprite();
+    // Sleep until the pet's next state change, vital limit or timer. Vitals move
+    // linearly in between, so the only other reason to wake is redrawing the
+    // bars, and that stops while the window is minimised.
+    private void scheduleNextWake() {
+        if (gameLoop == null) {
+            return;
         }
-
-        // Handle happiness state
-        if (happiness <= 0 && !currentPetState.equals("dead") && !currentPetState.equals("sleeping")) {
-            currentPetState = "angry";
-            updatePetSprite();
-        } else if (happiness >= HAPPINESS_THRESHOLD && currentPetState.equals("angry")) {
-            currentPetState = "normal";
-            updatePetSprite();
+        double delay = Math.max(0, simulation.nextEventTime() - clock.millis()) / clock.getScale();
+        if (!stage.isIconified()) {
+            delay = Math.min(delay, UI_REFRESH_MILLIS);
         }
+        gameLoop.stop();
+        gameLoop.setDuration(Duration.millis(Math.max(delay, MIN_WAKE_MILLIS)));
+        gameLoop.playFromStart();
+    }
 
-        // Normal vital decreases if not sleeping
-        if (!currentPetState.equals("sleeping")) {
-            fullness = Math.max(0, fullness - 1);
-            happiness = Math.max(0, happiness - (currentPetState.equals("hungry") ? 2 : 1));
-        }
+    private void stopGameLoop() {
+        stage.iconifiedProperty().removeListener(iconifiedListener);
+        gameLoop.stop();
+        gameLoop = null;
+        petAnimator.stop();
+    }
 
-        // Check for death
-        if (health <= 0 && !currentPetState.equals("dead")) {
-            currentPetState = "dead";
-            updatePetSprite();
-            handleDeath();
+    private void loadScoreLedger() {
+        try {
+            scoreLedger = JsonManager.loadScoreLedger(playerId);
+        } catch (IOException e) {
+            // Games saved before the ledger existed only have the pet's score
+            scoreLedger = new ScoreLedger(playerId);
         }
+    }
 
-        // Update petData and progress bars
-        petData.put("health_level", health);
-        petData.put("sleep_level", sleep);
-        petData.put("fullness_level", fullness);
-        petData.put("happiness_level", happiness);
-        updateVitalBars();
+    // Run the simulation up to the clock; play time counts game time, so it
+    // grows with the clock's scale and matches what the pet lived through
+    private void updateTimeTracking() {
+        long elapsed = clock.millis() - simulation.getTime();
+        if (elapsed <= 0) {
+            return;
+        }
+        // Same result as stepping every tick, with one redraw at the end
+        simulation.catchUp(elapsed);
+        // Play time is real time, however fast the clock runs. Working it out
+        // from the session start keeps short updates from rounding away
+        totalPlayTime = playTimeAtStart + Math.round((simulation.getTime() - sessionStartTime) / clock.getScale());
+        petData.setTotalPlayTime(totalPlayTime);
+        petData.setLastSessionStart(simulation.getTime());
     }
 
     private void handleDeath() {
-        // Disable all function buttons except new game and load game
-        VBox functionsBox = (VBox) ((BorderPane) petImageView.getScene().getRoot()).getRight();
-        functionsBox.getChildren().forEach(node -> {
-            if (node instanceof Button) {
-                Button button = (Button) node;
-                String command = button.getText().substring(2); // Remove emoji
-                if (!command.equals("New Game") && !command.equals("Load Game")) {
-                    button.setDisable(true);
-                }
-            }
-        });
+        // The command buttons are already disabled: a dead pet accepts no commands
 
         // Show death message
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -855,47 +708,14 @@ public class GamePage {
     }
 
     private void useInventoryItem(int index) {
-        // Check if pet is dead
-        if (currentPetState.equals("dead")) {
-            showError("Your pet has passed away. Please start a new game or load a saved game.");
-            return;
-        }
-
-        // Check if pet is sleeping
-        if (currentPetState.equals("sleeping")) {
-            showError("Your pet is sleeping and cannot use items right now.");
-            return;
-        }
-
-        // Check if pet is angry and item isn't a toy
-        if (currentPetState.equals("angry") && (index >= inventory.size() || !inventory.get(index).equalsIgnoreCase("toy"))) {
-            showError("Your pet is angry and will only accept toys!");
+        updateTimeTracking();
+        String rejection = simulation.itemRejection(index);
+        if (rejection != null) {
+            showError(rejection);
             return;
         }
 
-        if (index < inventory.size()) {
-            String item = inventory.get(index);
-            switch (item.toLowerCase()) {
-                case "food":
-                    petData.put("fullness_level", 100);
-                    if (currentPetState.equals("hungry")) {
-                        currentPetState = "normal";
-                    }
-                    break;
-                case "medicine":
-                    petData.put("health_level", 100);
-                    break;
-                case "toy":
-                    double newHappiness = Math.min(100, 
-                        ((Number) petData.get("happiness_level")).doubleValue() + 30);
-                    petData.put("happiness_level", newHappiness);
-                    if (newHappiness >= HAPPINESS_THRESHOLD && currentPetState.equals("angry")) {
-                        currentPetState = "normal";
-                    }
-                    break;
-            }
-            updateVitalBars();
-            updatePetSprite();
+        if (simulation.useItem(index)) {
             saveGame();
         }
     }
@@ -947,41 +767,6 @@ public class GamePage {
         }
     }
 
-    private void checkAndGiveReward() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastRewardTime >= REWARD_INTERVAL) {
-            // Give random reward
-            Random random = new Random();
-            if (random.nextBoolean()) {
-                // Give food item
-                String[] foods = FOOD_ITEMS.keySet().toArray(new String[0]);
-                addItemToInventory(foods[random.nextInt(foods.length)], 1);
-            } else {
-                // Give gift item
-                String[] gifts = GIFT_ITEMS.keySet().toArray(new String[0]);
-                addItemToInventory(gifts[random.nextInt(gifts.length)], 1);
-            }
-
-            // Update last reward time
-            lastRewardTime = currentTime;
-            petData.put("last_reward_time", lastRewardTime);
-            saveGame();
-
-            // Show reward notification
-            showRewardNotification();
-
-            // Update inventory display
-            updateInventoryDisplay();
-        }
-    }
-
-    private void addItemToInventory(String item, int count) {
-        for (int i = 0; i < count; i++) {
-            inventory.add(item);
-        }
-        petData.put("inventory", inventory);
-    }
-
     private void showRewardNotification() {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("New Item Received!");
@@ -993,9 +778,10 @@ public class GamePage {
             Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
             stage.setAlwaysOnTop(true);
             alert.show();
-            // Auto-close after 3 seconds
-            Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(3), evt -> alert.close()));
-            timeline.play();
+            // Auto-close after 3 real seconds, however fast the game clock runs
+            PauseTransition autoClose = new PauseTransition(Duration.seconds(3));
+            autoClose.setOnFinished(e -> alert.close());
+            autoClose.play();
         });
     }
 
@@ -1020,13 +806,36 @@ public class GamePage {
     }
 
     private void saveGame() {
+        // Hand the data to the background writer so the FX thread never waits on disk
+        SaveWriter.submitPetData(petData);
+        if (simulation.isScoreChanged()) {
+            SaveWriter.submitScoreLedger(scoreLedger);
+        }
+        simulation.markSaved();
+        lastSaveNanos = System.nanoTime();
+    }
+
+    // Stop the game and save it, waiting for the write, when the player leaves
+    // through the exit button or by closing the window
+    private void leaveGame() {
+        stage.setOnCloseRequest(null);
+        stopBackgroundMusic();
+        stopGameLoop();
+        updateTimeTracking();
+        saveGame();
+        simulation.stopRecording();
+        flushSaves();
+    }
+
+    // Wait for queued saves to be written, e.g. before leaving the game screen
+    private boolean flushSaves() {
         try {
-            // Update time tracking before saving
-            updateTimeTracking();
-            JsonManager.savePetData(petData);
+            SaveWriter.flush();
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
             showError("Failed to save game");
+            return false;
         }
     }
 
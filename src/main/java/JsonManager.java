@@ -1,137 +1,656 @@
 package com.nudge;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Paths;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 public class JsonManager {
-    private static final ObjectMapper mapper = new ObjectMapper();
     private static final String DATA_DIR = "src/main/resources/data/";
 
+    // Known save formats; files are read with whichever one matches their header
+    private static final List<SaveCodec> codecs = new CopyOnWriteArrayList<>(
+        List.of(new SmileSaveCodec(), new JsonSaveCodec()));
+    // Format used for new writes, "smile" by default or -Dnudge.save.format=json
+    private static volatile SaveCodec codec =
+        "json".equalsIgnoreCase(System.getProperty("nudge.save.format")) ? codecs.get(1) : codecs.get(0);
+
+    // Journal mode appends changed fields to pet_<id>.journal instead of rewriting the pet snapshot
+    private static volatile boolean journalMode = !"false".equals(System.getProperty("nudge.journal"));
+    private static final Map<String, PetJournal> petJournals = new ConcurrentHashMap<>();
+    private static final TaskLogStore taskLogs = new TaskLogStore(new File(DATA_DIR + "tasks"));
+
+    private static SaveManifest manifest; // loaded on first use
+
+    // Parsed player, pet, score and parental documents, -Dnudge.cache.bytes to resize
+    private static final DocumentCache cache = new DocumentCache(Long.getLong("nudge.cache.bytes", 4L * 1024 * 1024));
+
+    private static final int SAVED_GAMES_SHOWN = 5;
+    private static final Set<String> PLAYER_SUMMARY_FIELDS = Set.of("player_id", "username", "creation_date");
+    private static final Set<String> PET_SUMMARY_FIELDS = Set.of("pet_type", "score", "last_session_start");
+    // Parental controls and old per-day task logs are plain documents
+    private static final TypeReference<Map<String, Object>> DOCUMENT = new TypeReference<>() { };
+
+    // Reads one document from a save file
+    private interface DocumentReader<T> {
+        T read(File file) throws IOException;
+    }
+
     static {
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
         new File(DATA_DIR).mkdirs();
     }
 
     // Player data methods
-    public static void savePlayerData(Map<String, Object> playerData) throws IOException {
-        String playerId = (String) playerData.get("player_id");
-        File file = new File(DATA_DIR + "player_" + playerId + ".json");
-        mapper.writeValue(file, playerData);
+    public static void savePlayerData(PlayerProfile playerData) throws IOException {
+        writeCached("player_" + playerData.getPlayerId(), playerData.copy());
+        manifest().updatePlayer(playerData);
     }
 
-    public static Map<String, Object> loadPlayerData(String playerId) throws IOException {
-        File file = new File(DATA_DIR + "player_" + playerId + ".json");
-        return mapper.readValue(file, Map.class);
+    public static PlayerProfile loadPlayerData(String playerId) throws IOException {
+        return readCached("player_" + playerId, PlayerProfile.class, PlayerProfile::copy);
     }
 
     // Pet data methods
-    public static void savePetData(Map<String, Object> petData) throws IOException {
-        String playerId = (String) petData.get("player_id");
-        File file = new File(DATA_DIR + "pet_" + playerId + ".json");
-        mapper.writeValue(file, petData);
+    public static void savePetData(PetState petData) throws IOException {
+        String playerId = petData.getPlayerId();
+        if (journalMode) {
+            petJournal(playerId).save(petData);
+        } else {
+            petJournal(playerId).writeSnapshot(petData);
+        }
+        cache.put("pet_" + playerId, petStamp(playerId), petData.copy());
+        manifest().updatePet(petData);
+    }
+
+    // Replays any journal entries on top of the last snapshot
+    public static PetState loadPetData(String playerId) throws IOException {
+        long[] stamp = petStamp(playerId);
+        PetState cached = (PetState) cache.get("pet_" + playerId, stamp);
+        PetState petData;
+        if (cached != null) {
+            petData = cached.copy();
+        } else {
+            petData = petJournal(playerId).load();
+            cache.put("pet_" + playerId, stamp, petData.copy());
+        }
+        clampToWallClock(petData);
+        return petData;
+    }
+
+    // A session run with -Dnudge.time.scale saves times ahead of the wall clock.
+    // Pull them back to now so the next session neither skips its offline
+    // catch-up nor waits hours for a reward
+    private static void clampToWallClock(PetState petData) {
+        long now = System.currentTimeMillis();
+        petData.setLastSessionStart(Math.min(petData.getLastSessionStart(), now));
+        petData.setLastRewardTime(Math.min(petData.getLastRewardTime(), now));
+    }
+
+    public static void deletePetData(String playerId) {
+        cache.invalidate("pet_" + playerId);
+        PetJournal journal = petJournals.remove(playerId);
+        if (journal == null) {
+            journal = createPetJournal(playerId);
+        }
+        journal.delete();
+    }
+
+    public static void setJournalMode(boolean enabled) {
+        journalMode = enabled;
+    }
+
+    private static PetJournal petJournal(String playerId) {
+        return petJournals.computeIfAbsent(playerId, JsonManager::createPetJournal);
+    }
+
+    private static PetJournal createPetJournal(String playerId) {
+        return new PetJournal("pet_" + playerId, petJournalFile(playerId));
     }
 
-    public static Map<String, Object> loadPetData(String playerId) throws IOException {
-        File file = new File(DATA_DIR + "pet_" + playerId + ".json");
-        return mapper.readValue(file, Map.class);
+    private static File petJournalFile(String playerId) {
+        return new File(DATA_DIR + "pet_" + playerId + ".journal");
+    }
+
+    // A pet is only unchanged if neither its snapshot nor its journal changed
+    private static long[] petStamp(String playerId) {
+        return DocumentCache.stamp(findDataFile("pet_" + playerId), petJournalFile(playerId));
     }
 
     // Task tracker methods
     public static void saveTaskLog(Map<String, Object> taskLog) throws IOException {
         String playerId = (String) taskLog.get("player_id");
-        String date = (String) taskLog.get("date");
-        File file = new File(DATA_DIR + "tasks_" + playerId + "_" + date + ".json");
-        mapper.writeValue(file, taskLog);
+        LocalDate date = LocalDate.parse((String) taskLog.get("date"));
+        Object tasks = taskLog.get("tasks_completed");
+        taskLogs.replaceDay(playerId, date, tasks instanceof List ? (List<?>) tasks : List.of());
     }
 
     public static Map<String, Object> loadTaskLog(String playerId, String date) throws IOException {
-        File file = new File(DATA_DIR + "tasks_" + playerId + "_" + date + ".json");
-        return mapper.readValue(file, Map.class);
+        LocalDate day = LocalDate.parse(date);
+        List<Map<String, Object>> logs = taskLogs.load(playerId, day, day);
+        if (logs.isEmpty()) {
+            throw new FileNotFoundException("No task log for " + playerId + " on " + date);
+        }
+        return logs.get(0);
+    }
+
+    // Record one completed task without rewriting the rest of the day
+    public static void appendTaskLog(String playerId, LocalDate date, Map<String, Object> task) throws IOException {
+        taskLogs.append(playerId, date, task);
+    }
+
+    // Day logs from..to inclusive, oldest first; days without tasks are left out
+    public static List<Map<String, Object>> loadTaskLogs(String playerId, LocalDate from, LocalDate to) throws IOException {
+        return taskLogs.load(playerId, from, to);
+    }
+
+    // Cache of generated pet thumbnails; safe to delete, it is rebuilt on demand
+    static File thumbnailDir() {
+        return new File(DATA_DIR + "thumbnails");
+    }
+
+    // Where a recording of a session started at startTime is written
+    static File recordingFile(String playerId, long startTime) {
+        return new File(DATA_DIR + "recordings/" + playerId + "_" + startTime + ".rec");
     }
 
     // Parental controls methods
     public static void saveParentalControls(Map<String, Object> controls) throws IOException {
         String parentId = (String) controls.get("parent_id");
-        File file = new File(DATA_DIR + "parental_" + parentId + ".json");
-        mapper.writeValue(file, controls);
+        writeCached("parental_" + parentId, deepCopy(controls));
     }
 
     public static Map<String, Object> loadParentalControls(String parentId) throws IOException {
-        File file = new File(DATA_DIR + "parental_" + parentId + ".json");
-        return mapper.readValue(file, Map.class);
+        return readCached("parental_" + parentId, file -> readFile(file, DOCUMENT), JsonManager::deepCopy);
     }
 
     // Score tracking methods
-    public static void saveScoreData(Map<String, Object> scoreData) throws IOException {
-        String playerId = (String) scoreData.get("player_id");
-        File file = new File(DATA_DIR + "score_" + playerId + ".json");
-        mapper.writeValue(file, scoreData);
+    public static void saveScoreLedger(ScoreLedger ledger) throws IOException {
+        writeCached("score_" + ledger.getPlayerId(), ledger.copy());
+        manifest().updateScore(ledger.getPlayerId(), ledger.getTotalScore());
+    }
+
+    public static ScoreLedger loadScoreLedger(String playerId) throws IOException {
+        ScoreLedger ledger = readCached("score_" + playerId, ScoreLedger.class, ScoreLedger::copy);
+        ledger.backfillAggregates();
+        return ledger;
+    }
+
+    // Document cache statistics
+    public static long getCacheHitCount() {
+        return cache.hits();
+    }
+
+    public static long getCacheMissCount() {
+        return cache.misses();
+    }
+
+    public static long getCacheEvictionCount() {
+        return cache.evictions();
+    }
+
+    public static long getCacheSizeBytes() {
+        return cache.size();
     }
 
-    public static Map<String, Object> loadScoreData(String playerId) throws IOException {
-        File file = new File(DATA_DIR + "score_" + playerId + ".json");
-        return mapper.readValue(file, Map.class);
+    // Serve a document from the cache while its file is unchanged; callers get
+    // their own copy so they can modify it freely
+    private static <T> T readCached(String baseName, Class<T> type, UnaryOperator<T> copier) throws IOException {
+        return readCached(baseName, file -> readFile(file, type), cached -> copier.apply(type.cast(cached)));
+    }
+
+    private static <T> T readCached(String baseName, DocumentReader<T> reader, Function<Object, T> copier)
+            throws IOException {
+        File file = findDataFile(baseName);
+        if (file == null) {
+            cache.invalidate(baseName);
+            throw new FileNotFoundException(DATA_DIR + baseName);
+        }
+
+        long[] stamp = DocumentCache.stamp(file);
+        Object cached = cache.get(baseName, stamp);
+        if (cached != null) {
+            return copier.apply(cached);
+        }
+        T value = reader.read(file);
+        cache.put(baseName, stamp, copier.apply(value));
+        return value;
+    }
+
+    // Write a document and keep the written value cached (value must not be shared with the caller)
+    private static void writeCached(String baseName, Object value) throws IOException {
+        writeDataFile(baseName, value);
+        cache.put(baseName, DocumentCache.stamp(findDataFile(baseName)), value);
+    }
+
+    // Copy of a document made of maps, lists and immutable scalars, typed as the
+    // caller expects it (the copy has the same shape as the value)
+    @SuppressWarnings("unchecked")
+    private static <T> T deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> copy.put(k, deepCopy(v)));
+            return (T) copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            ((List<?>) value).forEach(item -> copy.add(deepCopy(item)));
+            return (T) copy;
+        }
+        return (T) value;
+    }
+
+    // Remove every file belonging to a saved game
+    public static void deleteGameFiles(String playerId) throws IOException {
+        manifest().remove(playerId);
+        deleteDataFile("player_" + playerId);
+        deletePetData(playerId);
+        deleteDataFile("score_" + playerId);
+        taskLogs.deletePlayer(playerId);
+    }
+
+    // Utility method to list the oldest saved games, served from the manifest
+    public static List<SavedGame> listSavedGames() {
+        return oldestGames(manifest().list(), SAVED_GAMES_SHOWN);
+    }
+
+    // Fill in pet details a manifest entry is missing, e.g. when the pet had not
+    // been saved yet at the time the entry was written
+    public static SavedGame completeSavedGame(SavedGame game) {
+        if (game.getPetType() == null) {
+            readPetSummary(game);
+        }
+        return game;
+    }
+
+    // Pick the k oldest games with a bounded heap instead of sorting them all
+    static List<SavedGame> oldestGames(Collection<SavedGame> games, int k) {
+        Comparator<Map.Entry<LocalDateTime, SavedGame>> byCreation = Map.Entry.comparingByKey();
+        PriorityQueue<Map.Entry<LocalDateTime, SavedGame>> newestOnTop = new PriorityQueue<>(k + 1, byCreation.reversed());
+
+        for (SavedGame game : games) {
+            if (game.getCreationDate() == null) {
+                continue; // pet saved without a player file
+            }
+            LocalDateTime created;
+            try {
+                created = LocalDateTime.parse(game.getCreationDate());
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            if (newestOnTop.size() < k) {
+                newestOnTop.add(Map.entry(created, game));
+            } else if (created.isBefore(newestOnTop.peek().getKey())) {
+                newestOnTop.poll();
+                newestOnTop.add(Map.entry(created, game));
+            }
+        }
+
+        // Drain newest first, filling the result from the back (oldest first)
+        SavedGame[] oldest = new SavedGame[newestOnTop.size()];
+        for (int i = oldest.length - 1; i >= 0; i--) {
+            oldest[i] = newestOnTop.poll().getValue();
+        }
+        return new ArrayList<>(Arrays.asList(oldest));
+    }
+
+    // Rebuild the manifest from the player, pet and score files on disk
+    public static synchronized void rebuildManifest() throws IOException {
+        manifest = new SaveManifest(scanSavedGames());
+        manifest.write();
+    }
+
+    private static synchronized SaveManifest manifest() {
+        if (manifest == null) {
+            try {
+                SaveManifest.Document document = readDataFile(SaveManifest.FILE_NAME, SaveManifest.Document.class);
+                if (document.version == SaveManifest.VERSION) {
+                    manifest = new SaveManifest(document.games);
+                }
+            } catch (IOException e) {
+                // Missing or unreadable, rebuilt below
+            }
+            if (manifest == null) {
+                try {
+                    rebuildManifest();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else {
+                refreshManifest(manifest);
+            }
+        }
+        return manifest;
+    }
+
+    // Re-read the entries of players whose saves changed since the manifest was
+    // written (edited, copied in or left behind by a crash between a save and
+    // its manifest update) and drop those whose player file is gone. Runs once,
+    // when the manifest is loaded; after that every save in this process keeps
+    // it up to date, and rebuildManifest() starts over from the files.
+    private static void refreshManifest(SaveManifest current) {
+        File manifestFile = findDataFile(SaveManifest.FILE_NAME);
+        long written = manifestFile != null ? manifestFile.lastModified() : 0;
+        File[] files = new File(DATA_DIR).listFiles((dir, name) ->
+            (name.startsWith("player_") || name.startsWith("pet_") || name.startsWith("score_"))
+                && (codecForName(name) != null || name.endsWith(".journal")));
+        if (files == null) {
+            return;
+        }
+
+        Map<String, File> playerFiles = new HashMap<>();
+        Set<String> changed = new HashSet<>();
+        for (File file : files) {
+            String name = file.getName();
+            String playerId = name.substring(name.indexOf('_') + 1, name.lastIndexOf('.'));
+            if (name.startsWith("player_")) {
+                playerFiles.put(playerId, file);
+            }
+            // Same-tick writes count as changed, for file systems with coarse times
+            if (file.lastModified() >= written) {
+                changed.add(playerId);
+            }
+        }
+        Set<String> known = current.playerIds();
+        Set<String> removed = new HashSet<>(known);
+        removed.removeAll(playerFiles.keySet());
+        for (String playerId : playerFiles.keySet()) {
+            if (!known.contains(playerId)) {
+                changed.add(playerId);
+            }
+        }
+        changed.retainAll(playerFiles.keySet());
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        List<SavedGame> fresh = new ArrayList<>();
+        for (String playerId : changed) {
+            SavedGame game = readSavedGame(playerFiles.get(playerId));
+            if (game != null) {
+                fresh.add(game);
+            }
+        }
+        try {
+            current.refresh(fresh, removed);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
-    // Utility method to list all saved games
-    public static List<Map<String, Object>> listSavedGames() {
-        List<Map<String, Object>> savedGames = new ArrayList<>();
+    // Slow path: skim every save to recreate the manifest entries. Only the
+    // summary fields are read; the rest of each file is never parsed.
+    private static List<SavedGame> scanSavedGames() {
+        List<SavedGame> savedGames = new ArrayList<>();
         File dir = new File(DATA_DIR);
-        File[] files = dir.listFiles((d, name) -> name.startsWith("player_") && name.endsWith(".json"));
-        
+        File[] files = dir.listFiles((d, name) -> name.startsWith("player_") && codecForName(name) != null);
+
         if (files != null) {
             for (File file : files) {
+                SavedGame game = readSavedGame(file);
+                if (game != null) {
+                    savedGames.add(game);
+                }
+            }
+        }
+        return savedGames;
+    }
+
+    // Manifest entry for one player file, or null if it cannot be read
+    private static SavedGame readSavedGame(File playerFile) {
+        try {
+            Map<String, String> player = readFields(playerFile, PLAYER_SUMMARY_FIELDS);
+            SavedGame game = new SavedGame(player.get("player_id"));
+            game.setUsername(player.get("username"));
+            game.setCreationDate(player.get("creation_date"));
+            if (game.getPlayerId() == null) {
+                return null;
+            }
+            readPetSummary(game);
+            return game;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static void readPetSummary(SavedGame game) {
+        String playerId = game.getPlayerId();
+        try {
+            if (new File(DATA_DIR + "pet_" + playerId + ".journal").exists()) {
+                // The snapshot alone would be out of date
+                PetState pet = loadPetData(playerId);
+                game.setPetType(pet.getPetType());
+                game.setScore(pet.getScore());
+                game.setLastPlayed(pet.getLastSessionStart());
+                return;
+            }
+
+            File petFile = findDataFile("pet_" + playerId);
+            if (petFile != null) {
+                Map<String, String> pet = readFields(petFile, PET_SUMMARY_FIELDS);
+                game.setPetType(pet.get("pet_type"));
+                game.setScore(pet.containsKey("score") ? (int) Double.parseDouble(pet.get("score")) : 0);
+                game.setLastPlayed(pet.containsKey("last_session_start") ? Long.parseLong(pet.get("last_session_start")) : 0);
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Player without a readable pet yet; keep the player fields
+        }
+    }
+
+    // Stream a save file and collect the named top-level scalar fields as text,
+    // stopping as soon as all of them have been seen
+    static Map<String, String> readFields(File file, Set<String> names) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            SaveCodec fileCodec = detectCodec(in, file);
+            try (JsonParser parser = fileCodec.mapper().getFactory().createParser(in)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Not a save document: " + file);
+                }
+                while (values.size() < names.size() && parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (names.contains(name) && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                        values.put(name, parser.getText());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    // Save format methods
+    public static SaveCodec getSaveCodec() {
+        return codec;
+    }
+
+    // Switch the format used for new writes; existing files stay readable
+    public static void setSaveCodec(SaveCodec saveCodec) {
+        if (!codecs.contains(saveCodec)) {
+            codecs.add(0, saveCodec);
+        }
+        codec = saveCodec;
+    }
+
+    // One-shot conversion of player, pet and score files written in another
+    // format to the current one, and of per-day tasks_<player>_<date> files
+    // into the task log segments. Returns the number of files converted.
+    public static int migrateSaveFiles() {
+        int migrated = migrateTaskLogFiles();
+
+        SaveCodec target = codec;
+        File[] files = new File(DATA_DIR).listFiles((dir, name) ->
+            (name.startsWith("player_") || name.startsWith("pet_") || name.startsWith("score_"))
+                && !name.endsWith(target.extension())
+                && codecForName(name) != null);
+
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                String baseName = name.substring(0, name.lastIndexOf('.'));
                 try {
-                    Map<String, Object> playerData = mapper.readValue(file, Map.class);
-                    savedGames.add(playerData);
+                    writeDataFile(baseName, readFile(file, JsonNode.class));
+                    migrated++;
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
             }
         }
-        
-        // Sort by creation date (oldest first)
-        savedGames.sort((a, b) -> {
-            LocalDateTime timeA = LocalDateTime.parse((String) a.get("creation_date"));
-            LocalDateTime timeB = LocalDateTime.parse((String) b.get("creation_date"));
-            return timeA.compareTo(timeB);
-        });
-        
-        // Limit to 5 games
-        return savedGames.size() > 5 ? savedGames.subList(0, 5) : savedGames;
+        return migrated;
+    }
+
+    private static int migrateTaskLogFiles() {
+        File[] files = new File(DATA_DIR).listFiles((dir, name) ->
+            name.startsWith("tasks_") && codecForName(name) != null);
+
+        int migrated = 0;
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    saveTaskLog(readFile(file, DOCUMENT));
+                    file.delete();
+                    migrated++;
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return migrated;
+    }
+
+    // Existing save file such as "pet_<id>" in any known format, or null
+    static File findDataFile(String baseName) {
+        File preferred = new File(DATA_DIR + baseName + codec.extension());
+        if (preferred.exists()) {
+            return preferred;
+        }
+        for (SaveCodec candidate : codecs) {
+            File file = new File(DATA_DIR + baseName + candidate.extension());
+            if (file.exists()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    static <T> T readDataFile(String baseName, Class<T> type) throws IOException {
+        File file = findDataFile(baseName);
+        if (file == null) {
+            throw new FileNotFoundException(DATA_DIR + baseName);
+        }
+        return readFile(file, type);
+    }
+
+    static void writeDataFile(String baseName, Object value) throws IOException {
+        cache.invalidate(baseName);
+        SaveCodec target = codec;
+        File file = new File(DATA_DIR + baseName + target.extension());
+
+        // Write beside the target and move into place, so a crash mid-write
+        // leaves the previous file rather than a truncated one
+        File temp = File.createTempFile(baseName, ".tmp", file.getParentFile());
+        try {
+            target.mapper().writeValue(temp, value);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+
+        // Drop copies in other formats so they can't shadow the new file
+        for (SaveCodec other : codecs) {
+            if (other != target) {
+                new File(DATA_DIR + baseName + other.extension()).delete();
+            }
+        }
+    }
+
+    static void deleteDataFile(String baseName) {
+        cache.invalidate(baseName);
+        for (SaveCodec candidate : codecs) {
+            new File(DATA_DIR + baseName + candidate.extension()).delete();
+        }
+    }
+
+    // Read a file with whichever codec recognises its first bytes
+    private static <T> T readFile(File file, Class<T> type) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        return codecFor(data, data.length, file).mapper().readValue(data, type);
+    }
+
+    private static <T> T readFile(File file, TypeReference<T> type) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        return codecFor(data, data.length, file).mapper().readValue(data, type);
+    }
+
+    // Peek at the start of a stream without consuming it
+    private static SaveCodec detectCodec(InputStream in, File file) throws IOException {
+        byte[] header = new byte[16];
+        in.mark(header.length);
+        int length = in.readNBytes(header, 0, header.length);
+        in.reset();
+        return codecFor(header, length, file);
+    }
+
+    private static SaveCodec codecFor(byte[] header, int length, File file) throws IOException {
+        for (SaveCodec candidate : codecs) {
+            if (candidate.matches(header, length)) {
+                return candidate;
+            }
+        }
+        throw new IOException("Unrecognised save format: " + file);
+    }
+
+    private static SaveCodec codecForName(String fileName) {
+        for (SaveCodec candidate : codecs) {
+            if (fileName.endsWith(candidate.extension())) {
+                return candidate;
+            }
+        }
+        return null;
     }
 
     // Create example data for testing
     public static void createExampleData() throws IOException {
         // Example player data
-        Map<String, Object> playerData = new HashMap<>();
-        playerData.put("player_id", "123456");
-        playerData.put("username", "PetLover99");
-        playerData.put("account_type", "child");
-        playerData.put("login_streak", 5);
-        playerData.put("achievements", Arrays.asList("First Feed", "5-Day Streak"));
-        Map<String, Object> settings = new HashMap<>();
-        settings.put("sound_enabled", true);
-        settings.put("parental_controls", true);
-        playerData.put("settings", settings);
-        playerData.put("creation_date", LocalDateTime.now().toString());
+        PlayerProfile playerData = new PlayerProfile();
+        playerData.setPlayerId("123456");
+        playerData.setUsername("PetLover99");
+        playerData.setAccountType("child");
+        playerData.setLoginStreak(5);
+        playerData.setAchievements(new ArrayList<>(Arrays.asList("First Feed", "5-Day Streak")));
+        playerData.getSettings().setSoundEnabled(true);
+        playerData.getSettings().setParentalControls(true);
+        playerData.setCreationDate(LocalDateTime.now().toString());
         savePlayerData(playerData);
 
         // Example pet data
-        Map<String, Object> petData = new HashMap<>();
-        petData.put("player_id", "123456");
-        petData.put("pet_name", "Fluffy");
-        petData.put("pet_type", "dog");
-        petData.put("hunger_level", 40);
-        petData.put("happiness_level", 85);
-        petData.put("last_fed", LocalDateTime.now().toString());
-        petData.put("last_groomed", LocalDateTime.now().toString());
-        petData.put("inventory", Arrays.asList("Food", "Brush", "Toy"));
+        PetState petData = new PetState();
+        petData.setPlayerId("123456");
+        petData.setPetName("Fluffy");
+        petData.setPetType("dog");
+        petData.setFullnessLevel(60);
+        petData.setHappinessLevel(85);
+        petData.setLastFed(LocalDateTime.now().toString());
+        petData.setOther("last_groomed", LocalDateTime.now().toString());
+        petData.setInventory(new ArrayList<>(Arrays.asList("Food", "Brush", "Toy")));
         savePetData(petData);
 
         // Example task log
@@ -159,26 +678,11 @@ public class JsonManager {
         saveParentalControls(parentalControls);
 
         // Example score data
-        Map<String, Object> scoreData = new HashMap<>();
-        scoreData.put("player_id", "123456");
-        scoreData.put("total_score", 850);
-        List<Map<String, Object>> recentActions = new ArrayList<>();
-        recentActions.add(Map.of(
-            "action", "fed_pet",
-            "points", 10,
-            "timestamp", LocalDateTime.now().toString()
-        ));
-        recentActions.add(Map.of(
-            "action", "groomed_pet",
-            "points", 15,
-            "timestamp", LocalDateTime.now().toString()
-        ));
-        recentActions.add(Map.of(
-            "action", "played_with_pet",
-            "points", 20,
-            "timestamp", LocalDateTime.now().toString()
-        ));
-        scoreData.put("recent_actions", recentActions);
-        saveScoreData(scoreData);
+        ScoreLedger scoreData = new ScoreLedger("123456");
+        scoreData.setTotalScore(805);
+        scoreData.record("fed_pet", 10, LocalDateTime.now());
+        scoreData.record("groomed_pet", 15, LocalDateTime.now());
+        scoreData.record("played_with_pet", 20, LocalDateTime.now());
+        saveScoreLedger(scoreData);
     }
 } 
\ No newline at end of file
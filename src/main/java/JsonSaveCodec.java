@@ -0,0 +1,38 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Pretty-printed JSON, the original human-readable save format.
+ */
+public class JsonSaveCodec implements SaveCodec {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public JsonSaveCodec() {
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    @Override
+    public String extension() {
+        return ".json";
+    }
+
+    @Override
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    @Override
+    public boolean matches(byte[] header, int length) {
+        // Skip leading whitespace and an optional UTF-8 byte order mark
+        for (int i = 0; i < length; i++) {
+            int b = header[i] & 0xFF;
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == 0xEF || b == 0xBB || b == 0xBF) {
+                continue;
+            }
+            return b == '{' || b == '[';
+        }
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.nudge;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * The pets a player can adopt: one image per pet in the images directory,
+ * in file name order. A pet's type is "type" followed by its 1-based place in
+ * that order, which is what saves store in pet_type.
+ */
+final class PetCatalog {
+    static final File IMAGE_DIR = new File("src/main/java/images");
+
+    private static List<File> images;
+
+    private PetCatalog() {
+    }
+
+    // Pet images in type order; state variants such as dragonite_sleeping.gif are left out
+    static synchronized List<File> images() {
+        if (images == null) {
+            List<File> found = new ArrayList<>();
+            File[] files = IMAGE_DIR.listFiles((dir, name) -> isImage(name) && !isStateVariant(name));
+            if (files != null) {
+                found.addAll(Arrays.asList(files));
+                // listFiles has no defined order, and the type numbers must not move
+                found.sort(Comparator.comparing(File::getName));
+            }
+            images = Collections.unmodifiableList(found);
+        }
+        return images;
+    }
+
+    static String type(int index) {
+        return "type" + (index + 1);
+    }
+
+    // Image for a pet type, or null if the type is not in the catalog
+    static File image(String petType) {
+        if (petType == null || !petType.startsWith("type")) {
+            return null;
+        }
+        try {
+            int index = Integer.parseInt(petType.substring(4)) - 1;
+            List<File> all = images();
+            return index >= 0 && index < all.size() ? all.get(index) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isImage(String name) {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".gif") || lower.endsWith(".jpg") || lower.endsWith(".webp");
+    }
+
+    private static boolean isStateVariant(String name) {
+        for (PetSimulation.State state : PetSimulation.State.values()) {
+            if (name.contains("_" + state.getId() + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
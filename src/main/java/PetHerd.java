@@ -0,0 +1,208 @@
+package com.nudge;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Vitals of many pets kept in parallel primitive columns, for running a whole
+ * classroom or household in one process. tick() applies the same per-second
+ * rules as PetSimulation to every pet; large herds are split across cores with
+ * fork/join. Rewards, cooldowns and scores stay with PetSimulation.
+ *
+ * Not thread-safe: add, load and tick must not overlap.
+ */
+public class PetHerd {
+    public static final byte NORMAL = 0;
+    public static final byte SLEEPING = 1;
+    public static final byte HUNGRY = 2;
+    public static final byte ANGRY = 3;
+    public static final byte DEAD = 4;
+
+    // The codes above are the PetSimulation.State ordinals
+    private static final PetSimulation.State[] STATES = PetSimulation.State.values();
+
+    // Below this many pets per task the split costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 16384;
+
+    private double[] health;
+    private double[] sleep;
+    private double[] fullness;
+    private double[] happiness;
+    private byte[] state;
+    private int size;
+
+    public PetHerd(int capacity) {
+        capacity = Math.max(capacity, 16);
+        health = new double[capacity];
+        sleep = new double[capacity];
+        fullness = new double[capacity];
+        happiness = new double[capacity];
+        state = new byte[capacity];
+    }
+
+    // Add a pet and return its index in the herd
+    public int add(PetState petData) {
+        if (size == state.length) {
+            int capacity = size * 2;
+            health = Arrays.copyOf(health, capacity);
+            sleep = Arrays.copyOf(sleep, capacity);
+            fullness = Arrays.copyOf(fullness, capacity);
+            happiness = Arrays.copyOf(happiness, capacity);
+            state = Arrays.copyOf(state, capacity);
+        }
+        int index = size++;
+        health[index] = petData.getHealthLevel();
+        sleep[index] = petData.getSleepLevel();
+        fullness[index] = petData.getFullnessLevel();
+        happiness[index] = petData.getHappinessLevel();
+        state[index] = stateCode(petData.getPetState());
+        return index;
+    }
+
+    // Copy a pet's vitals and state back into its saved data
+    public void store(int index, PetState petData) {
+        checkIndex(index);
+        petData.setHealthLevel(health[index]);
+        petData.setSleepLevel(sleep[index]);
+        petData.setFullnessLevel(fullness[index]);
+        petData.setHappinessLevel(happiness[index]);
+        petData.setPetState(STATES[state[index]].getId());
+    }
+
+    // Advance every pet by the given number of one-second ticks
+    public void tick(int ticks) {
+        if (size < PARALLEL_THRESHOLD * 2) {
+            tickRange(0, size, ticks);
+        } else {
+            ForkJoinPool.commonPool().invoke(new TickTask(0, size, ticks));
+        }
+    }
+
+    private class TickTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int ticks;
+
+        TickTask(int from, int to, int ticks) {
+            this.from = from;
+            this.to = to;
+            this.ticks = ticks;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                tickRange(from, to, ticks);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TickTask(from, mid, ticks), new TickTask(mid, to, ticks));
+            }
+        }
+    }
+
+    // Same rules as PetSimulation.updateVitals, one pet at a time so each
+    // pet's columns stay in registers across ticks
+    private void tickRange(int from, int to, int ticks) {
+        for (int i = from; i < to; i++) {
+            double h = health[i];
+            double sl = sleep[i];
+            double f = fullness[i];
+            double p = happiness[i];
+            byte s = state[i];
+
+            for (int t = 0; t < ticks; t++) {
+                // Handle sleep state
+                if (s == SLEEPING) {
+                    sl = Math.min(100, sl + PetSimulation.SLEEP_RECOVERY_RATE);
+                    if (sl >= 100) {
+                        s = NORMAL;
+                    }
+                } else {
+                    sl = Math.max(0, sl - 1);
+                    if (sl <= 0 && s != DEAD) {
+                        h = Math.max(0, h - PetSimulation.HEALTH_PENALTY);
+                        s = SLEEPING;
+                    }
+                }
+
+                // Handle hunger state
+                if (f <= 0 && s != DEAD && s != SLEEPING) {
+                    h = Math.max(0, h - PetSimulation.HUNGER_HEALTH_PENALTY);
+                    p = Math.max(0, p - PetSimulation.HUNGER_HAPPINESS_PENALTY);
+                    s = HUNGRY;
+                } else if (f > 0 && s == HUNGRY) {
+                    s = NORMAL;
+                }
+
+                // Handle happiness state
+                if (p <= 0 && s != DEAD && s != SLEEPING) {
+                    s = ANGRY;
+                } else if (p >= PetSimulation.HAPPINESS_THRESHOLD && s == ANGRY) {
+                    s = NORMAL;
+                }
+
+                // Normal vital decreases if not sleeping
+                if (s != SLEEPING) {
+                    f = Math.max(0, f - 1);
+                    p = Math.max(0, p - (s == HUNGRY ? 2 : 1));
+                }
+
+                if (h <= 0) {
+                    s = DEAD;
+                }
+            }
+
+            health[i] = h;
+            sleep[i] = sl;
+            fullness[i] = f;
+            happiness[i] = p;
+            state[i] = s;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getHealth(int index) {
+        checkIndex(index);
+        return health[index];
+    }
+
+    public double getSleep(int index) {
+        checkIndex(index);
+        return sleep[index];
+    }
+
+    public double getFullness(int index) {
+        checkIndex(index);
+        return fullness[index];
+    }
+
+    public double getHappiness(int index) {
+        checkIndex(index);
+        return happiness[index];
+    }
+
+    public byte getState(int index) {
+        checkIndex(index);
+        return state[index];
+    }
+
+    public static String stateName(byte code) {
+        return STATES[code].getId();
+    }
+
+    static byte stateCode(String name) {
+        return (byte) PetSimulation.State.fromId(name).ordinal();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Pet " + index + " of " + size);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.nudge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that PetHerd follows PetSimulation's rules exactly, then measures how
+ * many pet-ticks per second each runs at several herd sizes.
+ *
+ *   java com.nudge.PetHerdBenchmark [pets...]   (default 1000 100000 1000000)
+ *
+ * The check ticks random pets in both and compares every vital and state.
+ * PetSimulation is only timed up to 100k pets; a million of them do not fit
+ * in a default heap. Exits with status 1 if the check finds a difference.
+ */
+public class PetHerdBenchmark {
+    private static final int CHECK_PETS = 5000;
+    private static final int CHECK_TICKS = 700;
+    private static final int MAX_SIMULATIONS = 100_000;
+    private static final long HERD_PET_TICKS = 100_000_000L; // per measurement
+    private static final long SIMULATION_PET_TICKS = 10_000_000L;
+    private static final String[] STATE_IDS = {"normal", "sleeping", "hungry", "angry", "dead"};
+
+    public static void main(String[] args) {
+        int[] sizes = {1000, 100_000, 1_000_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        int mismatches = check(new Random(7));
+        System.out.println(mismatches == 0
+            ? "PetHerd matches PetSimulation on " + CHECK_PETS + " pets over " + CHECK_TICKS + " ticks"
+            : "PetHerd DIFFERS from PetSimulation on " + mismatches + " of " + CHECK_PETS + " pets");
+
+        Random random = new Random(42);
+        System.out.println("pets        herd (M pet-ticks/s)   simulation (M pet-ticks/s)");
+        for (int size : sizes) {
+            double herd = timeHerd(size, random);
+            String simulation = size <= MAX_SIMULATIONS ? String.format("%.1f", timeSimulations(size, random)) : "-";
+            System.out.printf("%-11d %-22.1f %s%n", size, herd, simulation);
+        }
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    // Number of pets whose vitals or state end up different in the two
+    private static int check(Random random) {
+        PetHerd herd = new PetHerd(CHECK_PETS);
+        List<PetSimulation> simulations = new ArrayList<>();
+        for (int i = 0; i < CHECK_PETS; i++) {
+            PetState petData = randomPet(random);
+            herd.add(petData);
+            simulations.add(new PetSimulation(petData.copy(), new ScoreLedger(petData.getPlayerId()), 0, i));
+        }
+        herd.tick(CHECK_TICKS);
+
+        int mismatches = 0;
+        for (int i = 0; i < CHECK_PETS; i++) {
+            PetSimulation simulation = simulations.get(i);
+            simulation.step(CHECK_TICKS * PetSimulation.TICK_MILLIS);
+            PetState expected = simulation.getPetData();
+            PetState actual = new PetState();
+            herd.store(i, actual);
+            if (expected.getHealthLevel() != actual.getHealthLevel()
+                    || expected.getSleepLevel() != actual.getSleepLevel()
+                    || expected.getFullnessLevel() != actual.getFullnessLevel()
+                    || expected.getHappinessLevel() != actual.getHappinessLevel()
+                    || !simulation.getState().getId().equals(actual.getPetState())) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    private static double timeHerd(int size, Random random) {
+        PetHerd herd = new PetHerd(size);
+        for (int i = 0; i < size; i++) {
+            herd.add(randomPet(random));
+        }
+        int ticks = (int) Math.max(1, HERD_PET_TICKS / size);
+        herd.tick(ticks); // warm up
+        long start = System.nanoTime();
+        herd.tick(ticks);
+        return perSecond((long) size * ticks, System.nanoTime() - start);
+    }
+
+    private static double timeSimulations(int size, Random random) {
+        List<PetSimulation> simulations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            PetState petData = randomPet(random);
+            simulations.add(new PetSimulation(petData, new ScoreLedger(petData.getPlayerId()), 0, i));
+        }
+        long ticks = Math.max(1, SIMULATION_PET_TICKS / size);
+        simulations.forEach(simulation -> simulation.step(ticks * PetSimulation.TICK_MILLIS)); // warm up
+        long start = System.nanoTime();
+        simulations.forEach(simulation -> simulation.step(ticks * PetSimulation.TICK_MILLIS));
+        return perSecond(size * ticks, System.nanoTime() - start);
+    }
+
+    private static double perSecond(long petTicks, long nanos) {
+        return petTicks / (nanos / 1e9) / 1e6;
+    }
+
+    private static PetState randomPet(Random random) {
+        PetState petData = new PetState();
+        petData.setPlayerId("benchmark");
+        petData.setHealthLevel(random.nextInt(101));
+        petData.setSleepLevel(random.nextInt(101));
+        petData.setFullnessLevel(random.nextInt(101));
+        petData.setHappinessLevel(random.nextInt(101));
+        petData.setPetState(STATE_IDS[random.nextInt(STATE_IDS.length)]);
+        return petData;
+    }
+}
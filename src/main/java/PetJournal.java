@@ -0,0 +1,277 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Snapshot plus append-only change log for one player's pet data.
+ *
+ * The snapshot is the usual pet_<id> save file. Saves in between only append
+ * the fields that changed to pet_<id>.journal, one compact JSON record per line:
+ *   {"n":12,"set":{"health_level":81.0}}   changed fields
+ *   {"n":13,"unset":["pet_state"]}          removed fields
+ *   {"n":14,"add":"Basic Food"}            inventory item gained
+ *   {"n":15,"remove":"Basic Toy"}          inventory item used
+ *   {"n":16,"score":5}                     score delta
+ * Every SNAPSHOT_INTERVAL records the snapshot is rewritten and the journal
+ * dropped. The snapshot remembers the last record it contains in
+ * "journal_seq", so records left over from an interrupted compaction are
+ * skipped on replay.
+ */
+class PetJournal {
+    private static final int SNAPSHOT_INTERVAL = 1000;
+    private static final String SEQ_FIELD = "journal_seq";
+    private static final ObjectMapper recordMapper = new ObjectMapper();
+
+    private final String snapshotName;
+    private final File journalFile;
+
+    private ObjectNode persisted; // state the files on disk add up to, null until known
+    private long seq;
+    private long snapshotSeq;
+
+    PetJournal(String snapshotName, File journalFile) {
+        this.snapshotName = snapshotName;
+        this.journalFile = journalFile;
+    }
+
+    synchronized PetState load() throws IOException {
+        JsonNode snapshot = JsonManager.readDataFile(snapshotName, JsonNode.class);
+        if (!(snapshot instanceof ObjectNode)) {
+            throw new IOException("Malformed pet snapshot " + snapshotName);
+        }
+        ObjectNode state = (ObjectNode) snapshot;
+        JsonNode seqNode = state.remove(SEQ_FIELD);
+        snapshotSeq = seqNode != null ? seqNode.asLong() : 0;
+        seq = snapshotSeq;
+
+        if (journalFile.exists()) {
+            byte[] data = Files.readAllBytes(journalFile.toPath());
+            int end = 0; // just past the last complete record
+            while (end < data.length) {
+                int newline = indexOf(data, (byte) '\n', end);
+                if (newline < 0) {
+                    break; // the final record was never finished
+                }
+                JsonNode record;
+                try {
+                    record = recordMapper.readTree(new String(data, end, newline - end, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    // A torn record from a crash mid-append; everything before it is valid
+                    break;
+                }
+                long n = record.path("n").asLong();
+                if (n > snapshotSeq) {
+                    apply(state, record);
+                    seq = n;
+                }
+                end = newline + 1;
+            }
+
+            // Cut off the torn tail so the next append starts on a fresh line
+            if (end < data.length) {
+                try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+            }
+        }
+
+        persisted = state;
+        return recordMapper.treeToValue(state, PetState.class);
+    }
+
+    // Append the differences to the journal, compacting when it grows too long
+    synchronized void save(PetState petData) throws IOException {
+        if (persisted == null) {
+            if (JsonManager.findDataFile(snapshotName) == null) {
+                writeSnapshot(petData);
+                return;
+            }
+            load();
+        }
+
+        ObjectNode current = recordMapper.valueToTree(petData);
+        List<ObjectNode> records = diff(persisted, current);
+        if (records.isEmpty()) {
+            return;
+        }
+
+        // Numbers and state only move on once the records are all written
+        long next = seq;
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8))) {
+            for (ObjectNode record : records) {
+                record.put("n", ++next);
+                writer.write(recordMapper.writeValueAsString(record));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            // Some records may have reached the journal anyway. A full snapshot
+            // numbered past them replaces the journal; failing that, the next
+            // save re-reads whatever is on disk instead of trusting persisted.
+            seq = next;
+            try {
+                writeSnapshot(current);
+            } catch (IOException snapshotFailure) {
+                e.addSuppressed(snapshotFailure);
+                persisted = null;
+                throw e;
+            }
+            return;
+        }
+        seq = next;
+        persisted = current;
+
+        if (seq - snapshotSeq >= SNAPSHOT_INTERVAL) {
+            writeSnapshot(persisted);
+        }
+    }
+
+    // Rewrite the full snapshot and drop the journal
+    synchronized void writeSnapshot(PetState petData) throws IOException {
+        writeSnapshot((ObjectNode) recordMapper.valueToTree(petData));
+    }
+
+    private void writeSnapshot(ObjectNode state) throws IOException {
+        ObjectNode snapshot = state.deepCopy();
+        snapshot.put(SEQ_FIELD, seq);
+        JsonManager.writeDataFile(snapshotName, snapshot);
+        snapshotSeq = seq;
+        journalFile.delete();
+        persisted = state;
+    }
+
+    synchronized void delete() {
+        JsonManager.deleteDataFile(snapshotName);
+        journalFile.delete();
+        persisted = null;
+    }
+
+    private static List<ObjectNode> diff(ObjectNode before, ObjectNode after) {
+        List<ObjectNode> records = new ArrayList<>();
+        ObjectNode changed = JsonNodeFactory.instance.objectNode();
+
+        Iterator<Map.Entry<String, JsonNode>> fields = after.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            String key = entry.getKey();
+            JsonNode oldValue = before.get(key);
+            JsonNode newValue = entry.getValue();
+            if (newValue.equals(oldValue)) {
+                continue;
+            }
+
+            if (key.equals("inventory") && oldValue != null && oldValue.isArray() && newValue.isArray()) {
+                List<ObjectNode> itemRecords = inventoryDiff((ArrayNode) oldValue, (ArrayNode) newValue);
+                if (itemRecords != null) {
+                    records.addAll(itemRecords);
+                    continue;
+                }
+            } else if (key.equals("score") && oldValue != null && oldValue.isIntegralNumber() && newValue.isIntegralNumber()) {
+                records.add(record().put("score", newValue.asLong() - oldValue.asLong()));
+                continue;
+            }
+            changed.set(key, newValue);
+        }
+
+        if (!changed.isEmpty()) {
+            ObjectNode set = record();
+            set.set("set", changed);
+            records.add(0, set);
+        }
+
+        ArrayNode removed = JsonNodeFactory.instance.arrayNode();
+        before.fieldNames().forEachRemaining(key -> {
+            if (!after.has(key)) {
+                removed.add(key);
+            }
+        });
+        if (!removed.isEmpty()) {
+            ObjectNode unset = record();
+            unset.set("unset", removed);
+            records.add(unset);
+        }
+        return records;
+    }
+
+    // Express an inventory change as item add/remove records, or null if replaying
+    // them would not reproduce the new order exactly
+    private static List<ObjectNode> inventoryDiff(ArrayNode before, ArrayNode after) {
+        List<String> oldItems = items(before);
+        List<String> newItems = items(after);
+        List<String> replayed = new ArrayList<>(oldItems);
+        List<ObjectNode> records = new ArrayList<>();
+
+        List<String> remaining = new ArrayList<>(newItems);
+        for (String item : oldItems) {
+            if (!remaining.remove(item)) {
+                replayed.remove(item);
+                records.add(record().put("remove", item));
+            }
+        }
+        for (String item : remaining) {
+            replayed.add(item);
+            records.add(record().put("add", item));
+        }
+
+        return replayed.equals(newItems) ? records : null;
+    }
+
+    private static void apply(ObjectNode state, JsonNode record) {
+        if (record.has("set")) {
+            state.setAll((ObjectNode) record.get("set"));
+        } else if (record.has("unset")) {
+            for (JsonNode key : record.get("unset")) {
+                state.remove(key.asText());
+            }
+        } else if (record.has("add")) {
+            inventoryOf(state).add(record.get("add").asText());
+        } else if (record.has("remove")) {
+            ArrayNode inventory = inventoryOf(state);
+            String item = record.get("remove").asText();
+            for (int i = 0; i < inventory.size(); i++) {
+                if (inventory.get(i).asText().equals(item)) {
+                    inventory.remove(i);
+                    break;
+                }
+            }
+        } else if (record.has("score")) {
+            state.put("score", state.path("score").asInt() + record.get("score").asInt());
+        }
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ArrayNode inventoryOf(ObjectNode state) {
+        JsonNode inventory = state.get("inventory");
+        return inventory instanceof ArrayNode ? (ArrayNode) inventory : state.putArray("inventory");
+    }
+
+    private static List<String> items(ArrayNode inventory) {
+        List<String> items = new ArrayList<>(inventory.size());
+        inventory.forEach(item -> items.add(item.asText()));
+        return items;
+    }
+
+    private static ObjectNode record() {
+        ObjectNode record = JsonNodeFactory.instance.objectNode();
+        record.put("n", 0L); // sequence number, assigned when appended
+        return record;
+    }
+}
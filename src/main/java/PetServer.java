@@ -0,0 +1,443 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless server that runs many players' pets in one process without JavaFX.
+ * A session is only woken when its pet next has something happen, as given
+ * by PetSimulation.nextEventTime(), or when its snapshot is REFRESH_MILLIS
+ * old; one scheduler thread checks for due sessions once a second and runs
+ * them on a shared worker pool. Saves go through the usual SaveWriter, and
+ * commands arrive over a small HTTP API bound to localhost. Requests are served by their own pool,
+ * and no session lock is held while a response is written, so a slow client
+ * cannot hold up the ticks:
+ *
+ *   POST   /sessions/{player}?name=..&type=..   open a saved game, or create one
+ *   GET    /sessions/{player}                   latest pet snapshot, without locking;
+ *                                               its time field says how old it is
+ *   POST   /sessions/{player}/{command}[?item=..]
+ *          feed, give-gift, play, vet, exercise, go-to-bed
+ *   DELETE /sessions/{player}                   save and close the session, answering
+ *                                               once the save is on disk
+ *   GET    /stats                               sessions and tick timings
+ *
+ * Start with: java com.nudge.PetServer [port]   (default -Dnudge.server.port or 8080)
+ * Add -Dnudge.time.scale=3600 to run an hour of pet life every second.
+ */
+public class PetServer {
+    private static final long AUTOSAVE_MILLIS = 10_000; // real time between background saves
+    private static final long REFRESH_MILLIS = 5000; // real time a quiet session's snapshot may lag
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final ExecutorService requests;
+    private final ScheduledExecutorService scheduler;
+    private final int workerCount;
+    private final GameClock clock;
+    private HttpServer http;
+
+    // Sessions by the clock time they next need a tick. An entry goes stale
+    // when its session is rescheduled or closed, and is dropped when polled.
+    private final PriorityQueue<Wake> wakes = new PriorityQueue<>(Comparator.comparingLong((Wake wake) -> wake.time));
+
+    private final AtomicLong ticks = new AtomicLong();
+    private volatile long lastTickNanos;
+    private volatile int lastTickSessions;
+
+    // One player's pet; everything but reading its snapshot holds the session's lock
+    private static class Session {
+        final PetSimulation simulation;
+        final long startTime;
+        final long playTimeAtStart;
+        long lastSaveNanos = System.nanoTime();
+        long wakeTime; // guarded by wakes
+        volatile boolean closed;
+
+        Session(PetSimulation simulation) {
+            this.simulation = simulation;
+            this.startTime = simulation.getTime();
+            this.playTimeAtStart = simulation.getPetData().getTotalPlayTime();
+        }
+    }
+
+    private static class Wake {
+        final long time;
+        final Session session;
+
+        Wake(long time, Session session) {
+            this.time = time;
+            this.session = session;
+        }
+    }
+
+    public PetServer(int workerCount) {
+        this(workerCount, GameClock.system());
+    }
+
+    public PetServer(int workerCount, GameClock clock) {
+        this.workerCount = workerCount;
+        this.clock = clock;
+        this.workers = Executors.newFixedThreadPool(workerCount, daemonThreads("nudge-server-worker"));
+        this.requests = Executors.newFixedThreadPool(Math.max(4, workerCount), daemonThreads("nudge-server-http"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("nudge-server-tick"));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("nudge.server.port", 8080);
+        JsonManager.migrateSaveFiles();
+
+        PetServer server = new PetServer(Runtime.getRuntime().availableProcessors());
+        server.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "nudge-server-stop"));
+        System.out.println("Pet server listening on http://localhost:" + server.http.getAddress().getPort());
+    }
+
+    public void start(int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        http.createContext("/sessions/", this::handleSession);
+        http.createContext("/stats", this::handleStats);
+        http.setExecutor(requests);
+        http.start();
+
+        scheduler.scheduleAtFixedRate(this::tickAll, PetSimulation.TICK_MILLIS,
+            PetSimulation.TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Stop taking requests, save every open session and wait for the writes
+    public void stop() {
+        if (http != null) {
+            http.stop(0);
+        }
+        scheduler.shutdownNow();
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                save(session);
+                session.simulation.stopRecording();
+            }
+        }
+        try {
+            SaveWriter.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        workers.shutdown();
+        requests.shutdown();
+    }
+
+    // Bring the sessions that are due up to the clock, spreading them over the workers
+    private void tickAll() {
+        long start = System.nanoTime();
+        long now = clock.millis();
+        List<Session> open = new ArrayList<>();
+        synchronized (wakes) {
+            while (!wakes.isEmpty() && wakes.peek().time <= now) {
+                Wake wake = wakes.poll();
+                Session session = wake.session;
+                if (!session.closed && wake.time == session.wakeTime) {
+                    session.wakeTime = Long.MIN_VALUE; // until tick() reschedules it
+                    open.add(session);
+                }
+            }
+        }
+        int batch = Math.max(1, (open.size() + workerCount - 1) / workerCount);
+        List<Future<?>> pending = new ArrayList<>();
+        for (int from = 0; from < open.size(); from += batch) {
+            List<Session> slice = open.subList(from, Math.min(open.size(), from + batch));
+            pending.add(workers.submit(() -> slice.forEach(this::tick)));
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        ticks.incrementAndGet();
+        lastTickNanos = System.nanoTime() - start;
+        lastTickSessions = open.size();
+    }
+
+    private void tick(Session session) {
+        synchronized (session) {
+            if (session.closed) {
+                return;
+            }
+            catchUp(session);
+            if (session.simulation.isDirty()
+                    && System.nanoTime() - session.lastSaveNanos >= AUTOSAVE_MILLIS * 1_000_000) {
+                save(session);
+            }
+            schedule(session);
+        }
+    }
+
+    // Queue the session's next tick. Call with the session's lock held, after
+    // anything that may have moved its next event
+    private void schedule(Session session) {
+        PetSimulation simulation = session.simulation;
+        long refresh = simulation.getTime() + (long) (REFRESH_MILLIS * clock.getScale());
+        long wakeTime = Math.min(simulation.nextEventTime(), refresh);
+        synchronized (wakes) {
+            if (!session.closed) {
+                session.wakeTime = wakeTime;
+                wakes.add(new Wake(wakeTime, session));
+            }
+        }
+    }
+
+    // Run the session's simulation up to the clock. A wake can cover many
+    // simulation ticks; catchUp applies the linear stretches between events in one go
+    private void catchUp(Session session) {
+        PetSimulation simulation = session.simulation;
+        long elapsed = clock.millis() - simulation.getTime();
+        if (elapsed <= 0) {
+            return;
+        }
+        simulation.catchUp(elapsed);
+        PetState petData = simulation.getPetData();
+        // Play time is real time, however fast the clock runs. Working it out
+        // from the session start keeps short wakes from rounding away
+        petData.setTotalPlayTime(session.playTimeAtStart
+            + Math.round((simulation.getTime() - session.startTime) / clock.getScale()));
+        petData.setLastSessionStart(simulation.getTime());
+    }
+
+    private void save(Session session) {
+        PetSimulation simulation = session.simulation;
+        SaveWriter.submitPetData(simulation.getPetData());
+        if (simulation.isScoreChanged()) {
+            SaveWriter.submitScoreLedger(simulation.getScoreLedger());
+        }
+        simulation.markSaved();
+        session.lastSaveNanos = System.nanoTime();
+    }
+
+    private void handleSession(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().substring("/sessions/".length()).split("/");
+            String playerId = path[0];
+            Map<String, String> query = query(exchange);
+            String method = exchange.getRequestMethod();
+
+            if (playerId.isEmpty() || path.length > 2) {
+                send(exchange, 404, error("Unknown resource"));
+            } else if (path.length == 2 && method.equals("POST")) {
+                command(exchange, playerId, path[1], query.get("item"));
+            } else if (path.length == 1 && method.equals("POST")) {
+                open(exchange, playerId, query.get("name"), query.get("type"));
+            } else if (path.length == 1 && method.equals("GET")) {
+                Session session = sessions.get(playerId);
+                if (session == null) {
+                    send(exchange, 404, error("No open session for " + playerId));
+                    return;
+                }
+                // Reads the published snapshot, so polling never waits on a tick
+                send(exchange, 200, toJson(session.simulation.snapshot()));
+            } else if (path.length == 1 && method.equals("DELETE")) {
+                Session session = sessions.remove(playerId);
+                if (session == null) {
+                    send(exchange, 404, error("No open session for " + playerId));
+                    return;
+                }
+                synchronized (session) {
+                    session.closed = true;
+                    save(session);
+                    session.simulation.stopRecording();
+                }
+                // Outside the lock: a client that reopens the player after
+                // this response must find the final state on disk
+                try {
+                    SaveWriter.flush(playerId);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    send(exchange, 500, error("Failed to save " + playerId + ": " + e.getMessage()));
+                    return;
+                }
+                send(exchange, 204, null);
+            } else {
+                send(exchange, 405, error("Method not allowed"));
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            send(exchange, 500, error(e.toString()));
+        }
+    }
+
+    private void open(HttpExchange exchange, String playerId, String petName, String petType) throws IOException {
+        Session session = sessions.get(playerId);
+        if (session == null) {
+            long now = clock.millis();
+            PetState petData;
+            ScoreLedger scoreLedger;
+            try {
+                petData = JsonManager.loadPetData(playerId);
+                try {
+                    scoreLedger = JsonManager.loadScoreLedger(playerId);
+                } catch (IOException e) {
+                    scoreLedger = new ScoreLedger(playerId);
+                }
+            } catch (IOException e) {
+                if (petName == null || petType == null) {
+                    send(exchange, 404, error("No saved game for " + playerId + "; pass name and type to create one"));
+                    return;
+                }
+                petData = PetSimulation.newPet(playerId, petName, petType, now);
+                scoreLedger = new ScoreLedger(playerId);
+                JsonManager.savePlayerData(PlayerProfile.newChild(playerId, petName));
+                JsonManager.savePetData(petData);
+                JsonManager.saveScoreLedger(scoreLedger);
+            }
+            petData.setLastSessionStart(now);
+            PetSimulation simulation = new PetSimulation(petData, scoreLedger, now, new Random().nextLong());
+            if (SessionRecorder.ENABLED) {
+                simulation.startRecording(new SessionRecorder(JsonManager.recordingFile(playerId, now)));
+            }
+            Session opened = new Session(simulation);
+            session = sessions.putIfAbsent(playerId, opened);
+            if (session == null) {
+                session = opened;
+                synchronized (opened) {
+                    schedule(opened);
+                }
+            } else {
+                // Another request opened the same player first
+                simulation.stopRecording();
+            }
+        }
+        send(exchange, 200, toJson(session.simulation.snapshot()));
+    }
+
+    private void command(HttpExchange exchange, String playerId, String name, String item) throws IOException {
+        Session session = sessions.get(playerId);
+        if (session == null) {
+            send(exchange, 404, error("No open session for " + playerId));
+            return;
+        }
+
+        PetSimulation.Command command;
+        try {
+            command = PetSimulation.Command.fromLabel(name.replace('-', ' '));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 404, error(e.getMessage()));
+            return;
+        }
+
+        // Build the response under the lock and send it after, so the tick never waits on the client
+        String reason;
+        PetSnapshot result;
+        synchronized (session) {
+            // The last wake may be a while behind the clock
+            catchUp(session);
+            PetSimulation simulation = session.simulation;
+            reason = simulation.unavailableReason(command);
+            if (reason == null && simulation.cooldownRemaining(command) > 0) {
+                reason = String.format("%s command is on cooldown. Available in %d seconds.",
+                    command.getLabel(), simulation.cooldownRemaining(command) / 1000);
+            }
+            if (reason == null && !simulation.execute(command, item)) {
+                reason = "No suitable item in inventory";
+            }
+            if (reason == null) {
+                save(session);
+                // The command may have brought the next event forward
+                schedule(session);
+            }
+            result = simulation.snapshot();
+        }
+        if (reason != null) {
+            send(exchange, 409, error(reason));
+        } else {
+            send(exchange, 200, toJson(result));
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        ObjectNode stats = mapper.createObjectNode();
+        stats.put("sessions", sessions.size());
+        stats.put("workers", workerCount);
+        stats.put("ticks", ticks.get());
+        stats.put("last_tick_sessions", lastTickSessions);
+        stats.put("last_tick_micros", lastTickNanos / 1000);
+        send(exchange, 200, stats);
+    }
+
+    private static ObjectNode toJson(PetSnapshot pet) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("player_id", pet.getPlayerId());
+        node.put("pet_name", pet.getPetName());
+        node.put("pet_type", pet.getPetType());
+        node.put("pet_state", pet.getState().getId());
+        node.put("score", pet.getScore());
+        node.put("health_level", pet.getHealthLevel());
+        node.put("sleep_level", pet.getSleepLevel());
+        node.put("fullness_level", pet.getFullnessLevel());
+        node.put("happiness_level", pet.getHappinessLevel());
+        ArrayNode inventory = node.putArray("inventory");
+        pet.getInventory().forEach(inventory::add);
+        node.put("last_reward_time", pet.getLastRewardTime());
+        node.put("time", pet.getTime());
+        ObjectNode cooldowns = node.putObject("cooldowns");
+        cooldowns.put("vet", pet.getVetCooldown() / 1000);
+        cooldowns.put("play", pet.getPlayCooldown() / 1000);
+        return node;
+    }
+
+    private static ObjectNode error(String message) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("error", message);
+        return node;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
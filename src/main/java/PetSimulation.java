@@ -0,0 +1,815 @@
+package com.nudge;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Game rules for one pet, independent of JavaFX. The simulation owns the pet's
+ * vitals, state, cooldowns, rewards and score; time only moves when step() is
+ * called, so it can run behind the game screen at one tick per second or be
+ * stepped as fast as the caller likes on any thread.
+ *
+ * The only randomness comes from a generator seeded at construction, so the
+ * same seed, starting pet and timed commands always give the same result;
+ * startRecording() captures exactly that for SessionReplay.
+ *
+ * Not thread-safe: all calls for one pet must come from the same thread.
+ * Listeners are notified on that thread. Other threads read the pet through
+ * snapshot(), which is published after every step and command.
+ */
+public class PetSimulation {
+    public static final long TICK_MILLIS = 1000;
+
+    static final double HEALTH_PENALTY = 20.0;
+    static final double HAPPINESS_THRESHOLD = 50.0;
+    static final double SLEEP_RECOVERY_RATE = 5.0;
+    static final double HUNGER_HEALTH_PENALTY = 2.0;
+    static final double HUNGER_HAPPINESS_PENALTY = 3.0;
+    static final long VET_COOLDOWN = 300000; // 5 minutes in milliseconds
+    static final long PLAY_COOLDOWN = 180000; // 3 minutes in milliseconds
+    static final long REWARD_INTERVAL = 300000; // 5 minutes in milliseconds
+    private static final long EXACT_LIMIT = 1L << 48; // bound for exact whole-number double sums in catchUp
+
+    public enum Command {
+        GO_TO_BED("Go to Bed"),
+        FEED("Feed"),
+        GIVE_GIFT("Give Gift"),
+        VET("Vet"),
+        PLAY("Play"),
+        EXERCISE("Exercise");
+
+        private final String label;
+
+        Command(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public static Command fromLabel(String label) {
+            for (Command command : values()) {
+                if (command.label.equalsIgnoreCase(label)) {
+                    return command;
+                }
+            }
+            throw new IllegalArgumentException("Unknown command " + label);
+        }
+    }
+
+    // The pet's condition. Each state lists the commands it accepts; the id is
+    // what saves store in pet_state.
+    public enum State {
+        NORMAL("normal", null, EnumSet.allOf(Command.class)),
+        SLEEPING("sleeping", "Your pet is sleeping and cannot perform actions right now.",
+            EnumSet.of(Command.GO_TO_BED)),
+        HUNGRY("hungry", null, EnumSet.allOf(Command.class)),
+        ANGRY("angry", "Your pet is angry and will only respond to gifts or play!",
+            EnumSet.of(Command.GIVE_GIFT, Command.PLAY)),
+        DEAD("dead", "Your pet has passed away. Please start a new game or load a saved game.",
+            EnumSet.noneOf(Command.class));
+
+        // Allowed transitions. A single tick can take a living pet from any
+        // state to any other (e.g. waking up starving), but nothing leaves DEAD.
+        private static final Map<State, Set<State>> TRANSITIONS = new EnumMap<>(State.class);
+        static {
+            TRANSITIONS.put(NORMAL, EnumSet.of(SLEEPING, HUNGRY, ANGRY, DEAD));
+            TRANSITIONS.put(SLEEPING, EnumSet.of(NORMAL, HUNGRY, ANGRY, DEAD));
+            TRANSITIONS.put(HUNGRY, EnumSet.of(NORMAL, SLEEPING, ANGRY, DEAD));
+            TRANSITIONS.put(ANGRY, EnumSet.of(NORMAL, SLEEPING, HUNGRY, DEAD));
+            TRANSITIONS.put(DEAD, EnumSet.noneOf(State.class));
+        }
+
+        private final String id;
+        private final String restriction;
+        private final Set<Command> commands;
+
+        State(String id, String restriction, Set<Command> commands) {
+            this.id = id;
+            this.restriction = restriction;
+            this.commands = commands;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean allows(Command command) {
+            return commands.contains(command);
+        }
+
+        public boolean canChangeTo(State next) {
+            return TRANSITIONS.get(this).contains(next);
+        }
+
+        // Saves without a state, or with one this version does not know, start out normal
+        public static State fromId(String id) {
+            for (State state : values()) {
+                if (state.id.equals(id)) {
+                    return state;
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    // Effect of an inventory item: fullness for food, happiness for gifts
+    public static class Item {
+        public final String name;
+        public final boolean food;
+        public final int value;
+        public final int points;
+
+        Item(String name, boolean food, int value, int points) {
+            this.name = name;
+            this.food = food;
+            this.value = value;
+            this.points = points;
+        }
+    }
+
+    // Kept in a fixed order so random rewards depend only on the random source
+    public static final Map<String, Item> FOOD_ITEMS = items(
+        new Item("Basic Food", true, 30, 5),
+        new Item("Premium Food", true, 50, 10),
+        new Item("Deluxe Food", true, 80, 15));
+
+    public static final Map<String, Item> GIFT_ITEMS = items(
+        new Item("Basic Toy", false, 20, 8),
+        new Item("Premium Toy", false, 35, 15),
+        new Item("Deluxe Toy", false, 60, 25));
+
+    public interface Listener {
+        // Sent once per real transition, after the tick or command that caused it
+        default void stateChanged(State oldState, State newState) { }
+        default void vitalsChanged() { }
+        default void rewardGiven(String item) { }
+        default void cooldownEnded(Command command) { }
+        default void died() { }
+        // A command or new timer may have moved nextEventTime() earlier
+        default void scheduleChanged() { }
+    }
+
+    private final PetState petData;
+    private final ScoreLedger scoreLedger;
+    private final long seed;
+    private final long startTime;
+    private final Random random;
+    private SessionRecorder recorder;
+    private final List<Listener> listeners = new ArrayList<>();
+    private final TimingWheel timers;
+
+    private State state;
+    private long now;
+    private long nextTick;
+    private long lastRewardTime;
+    private final Map<Command, Long> lastCommandTime = new EnumMap<>(Command.class);
+
+    private boolean dirty;
+    private boolean scoreChanged;
+
+    private final AtomicReference<PetSnapshot> snapshot = new AtomicReference<>();
+    private boolean inventoryChanged = true;
+
+    public PetSimulation(PetState petData, ScoreLedger scoreLedger, long startTime, long seed) {
+        this.petData = petData;
+        this.scoreLedger = scoreLedger;
+        this.seed = seed;
+        this.startTime = startTime;
+        this.random = new Random(seed);
+        this.now = startTime;
+        this.nextTick = startTime + TICK_MILLIS;
+        this.state = State.fromId(petData.getPetState());
+        this.lastRewardTime = petData.getLastRewardTime();
+        this.timers = new TimingWheel(startTime, TICK_MILLIS);
+        timers.scheduleAt(lastRewardTime + REWARD_INTERVAL, this::giveReward);
+
+        // The pet's score is what the player has seen; older ledgers may lag behind it
+        if (scoreLedger.getTotalScore() != petData.getScore()) {
+            scoreLedger.setTotalScore(petData.getScore());
+            scoreChanged = true;
+        }
+        publish();
+    }
+
+    // A freshly adopted pet with full vitals and the starting items
+    public static PetState newPet(String playerId, String petName, String petType, long now) {
+        String time = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()).toString();
+        PetState petData = new PetState();
+        petData.setPlayerId(playerId);
+        petData.setPetName(petName);
+        petData.setPetType(petType);
+        petData.setScore(0);
+        petData.setHealthLevel(100);
+        petData.setSleepLevel(100);
+        petData.setFullnessLevel(100);
+        petData.setHappinessLevel(100);
+        petData.setLastFed(time);
+        petData.setLastSlept(time);
+
+        List<String> inventory = petData.getInventory();
+        inventory.addAll(Collections.nCopies(3, "Basic Food"));
+        inventory.addAll(Collections.nCopies(2, "Premium Food"));
+        inventory.addAll(Collections.nCopies(2, "Basic Toy"));
+        inventory.add("Premium Toy");
+
+        petData.setLastRewardTime(now);
+        return petData;
+    }
+
+    // Record every command from now on. Must be called before the simulation
+    // is stepped or given commands, so the recording starts from a known state.
+    public void startRecording(SessionRecorder recorder) {
+        if (now != startTime || dirty || scoreChanged) {
+            throw new IllegalStateException("Recording must start before the simulation runs");
+        }
+        this.recorder = recorder;
+        recorder.header(seed, startTime, petData);
+    }
+
+    // Write the final pet to the recording and close it
+    public void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        recorder.end(now - startTime, petData);
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        recorder = null;
+    }
+
+    private void record(String command, String arg) {
+        if (recorder != null) {
+            recorder.command(now - startTime, command, arg);
+        }
+    }
+
+    // Run a command by name, as the server and replays do. Feed and give gift
+    // use the first suitable inventory item when none is named.
+    public boolean execute(Command command, String item) {
+        switch (command) {
+            case GO_TO_BED:
+                return goToBed();
+            case FEED:
+                return feed(item != null ? item : firstItem(FOOD_ITEMS));
+            case GIVE_GIFT:
+                return giveGift(item != null ? item : firstItem(GIFT_ITEMS));
+            case VET:
+                return vet();
+            case PLAY:
+                return play();
+            case EXERCISE:
+                return exercise();
+            default:
+                return false;
+        }
+    }
+
+    private String firstItem(Map<String, Item> kind) {
+        for (String item : petData.getInventory()) {
+            if (kind.containsKey(item)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Advance the clock, running one game tick for every whole second passed
+    public void step(long elapsedMillis) {
+        long target = now + elapsedMillis;
+        while (nextTick <= target) {
+            now = nextTick;
+            tick();
+            nextTick += TICK_MILLIS;
+        }
+        now = target;
+        publish();
+    }
+
+    // Same result as step(elapsedMillis), but stretches of ticks in which no
+    // state changes, no vital hits a limit and no timer fires are applied in
+    // one go. Every stretch ends in one of those, so the cost depends on how
+    // many of them happen rather than on how long the pet was away.
+    // Intermediate vitalsChanged events are not sent for the skipped ticks.
+    public void catchUp(long elapsedMillis) {
+        long target = now + elapsedMillis;
+        while (nextTick <= target) {
+            long ticks = (target - nextTick) / TICK_MILLIS + 1;
+            long steady = min(ticks, steadyTicks(), ticksBeforeTimer());
+            if (steady > 1) {
+                applySteadyTicks(steady);
+            } else {
+                now = nextTick;
+                tick();
+                nextTick += TICK_MILLIS;
+            }
+        }
+        now = target;
+        publish();
+    }
+
+    private void tick() {
+        updateVitals();
+        timers.advanceTo(now);
+    }
+
+    // Time of the next tick that does more than move every vital by its usual
+    // amount: a state change, a vital reaching a limit, or a timer. Until then
+    // the vitals change linearly, so a caller can wait until this time and
+    // bring the pet up to date with catchUp() instead of waking every tick.
+    public long nextEventTime() {
+        long steady = steadyTicks();
+        long vitalsEvent = steady >= (Long.MAX_VALUE - nextTick) / TICK_MILLIS
+            ? Long.MAX_VALUE : nextTick + steady * TICK_MILLIS;
+        return Math.min(vitalsEvent, timers.nextDeadline());
+    }
+
+    // Number of upcoming ticks that leave the state alone and change every vital
+    // by a fixed amount. Bounds are kept one tick short of any threshold so the
+    // tick that crosses it is always run by tick() itself.
+    private long steadyTicks() {
+        double health = petData.getHealthLevel();
+        double sleep = petData.getSleepLevel();
+        double fullness = petData.getFullnessLevel();
+        double happiness = petData.getHappinessLevel();
+
+        if (state == State.DEAD) {
+            // Vitals only drain towards zero from here on
+            return Long.MAX_VALUE;
+        }
+        if (health <= 0) {
+            return 0;
+        }
+        if (state == State.SLEEPING) {
+            return floorTicks((100 - sleep) / SLEEP_RECOVERY_RATE);
+        }
+
+        long awake = floorTicks(sleep);
+        if (fullness > 0) {
+            if (state == State.NORMAL && happiness > 0) {
+                return min(awake, floorTicks(fullness), floorTicks(happiness));
+            }
+            if (state == State.ANGRY && happiness < HAPPINESS_THRESHOLD) {
+                return Math.min(awake, floorTicks(fullness));
+            }
+            return 0;
+        }
+
+        // Starving: health drains every tick until the pet dies
+        long starving = floorTicks(health / HUNGER_HEALTH_PENALTY);
+        if (state == State.ANGRY && happiness <= 0) {
+            return Math.min(awake, starving);
+        }
+        if (state == State.HUNGRY && happiness > 0) {
+            return min(awake, starving, floorTicks(happiness / (HUNGER_HAPPINESS_PENALTY + 2)));
+        }
+        return 0;
+    }
+
+    // Ticks that can pass before the earliest timer, which tick() must run so
+    // the timer sees the time and vitals it fired at
+    private long ticksBeforeTimer() {
+        long deadline = timers.nextDeadline();
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : (deadline - nextTick) / TICK_MILLIS;
+    }
+
+    // Apply n ticks of the regime steadyTicks() found, with the same arithmetic
+    // as tick(). While every vital is a whole number each tick's sums are
+    // exact, so the n ticks collapse into one step of n times the amount;
+    // otherwise they are applied one at a time to round exactly as tick() does.
+    private void applySteadyTicks(long n) {
+        double health = petData.getHealthLevel();
+        double sleep = petData.getSleepLevel();
+        double fullness = petData.getFullnessLevel();
+        double happiness = petData.getHappinessLevel();
+
+        boolean exact = n < EXACT_LIMIT && isExact(health) && isExact(sleep)
+            && isExact(fullness) && isExact(happiness);
+        long steps = exact ? 1 : n;
+        long per = exact ? n : 1;
+        for (long i = 0; i < steps; i++) {
+            if (state == State.DEAD) {
+                sleep = Math.max(0, sleep - per);
+                fullness = Math.max(0, fullness - per);
+                happiness = Math.max(0, happiness - per);
+            } else if (state == State.SLEEPING) {
+                sleep = Math.min(100, sleep + SLEEP_RECOVERY_RATE * per);
+            } else if (fullness > 0) {
+                sleep = Math.max(0, sleep - per);
+                fullness = Math.max(0, fullness - per);
+                happiness = Math.max(0, happiness - per);
+            } else {
+                // Starving; an angry pet's happiness is already at zero
+                sleep = Math.max(0, sleep - per);
+                health = Math.max(0, health - HUNGER_HEALTH_PENALTY * per);
+                happiness = Math.max(0, happiness - HUNGER_HAPPINESS_PENALTY * per);
+                happiness = Math.max(0, happiness - (state == State.HUNGRY ? 2 : 1) * per);
+                fullness = Math.max(0, fullness - per);
+            }
+        }
+
+        if (health != petData.getHealthLevel() || sleep != petData.getSleepLevel()
+                || fullness != petData.getFullnessLevel() || happiness != petData.getHappinessLevel()) {
+            dirty = true;
+        }
+        petData.setHealthLevel(health);
+        petData.setSleepLevel(sleep);
+        petData.setFullnessLevel(fullness);
+        petData.setHappinessLevel(happiness);
+
+        // No timer is due within the stretch, so the wheel can simply move on
+        long lastTick = nextTick + (n - 1) * TICK_MILLIS;
+        timers.advanceTo(lastTick);
+
+        now = lastTick;
+        nextTick = lastTick + TICK_MILLIS;
+        fireVitalsChanged();
+    }
+
+    // Whole numbers small enough that adding up to EXACT_LIMIT whole-number
+    // steps to them never rounds
+    private static boolean isExact(double value) {
+        return value == Math.rint(value) && Math.abs(value) < EXACT_LIMIT;
+    }
+
+    // Whole ticks strictly inside a bound, minus one for the tick that reaches it
+    private static long floorTicks(double ticks) {
+        return Math.max(0, (long) Math.floor(ticks) - 1);
+    }
+
+    private static long min(long a, long b, long c) {
+        return Math.min(a, Math.min(b, c));
+    }
+
+    private void updateVitals() {
+        double health = petData.getHealthLevel();
+        double sleep = petData.getSleepLevel();
+        double fullness = petData.getFullnessLevel();
+        double happiness = petData.getHappinessLevel();
+        // Work out where the tick leaves the pet and transition once at the end,
+        // so a pet that passes through a state within the tick sends no events
+        State next = state;
+
+        // Handle sleep state
+        if (next == State.SLEEPING) {
+            sleep = Math.min(100, sleep + SLEEP_RECOVERY_RATE);
+            if (sleep >= 100) {
+                next = State.NORMAL;
+            }
+        } else {
+            sleep = Math.max(0, sleep - 1);
+            if (sleep <= 0 && next != State.DEAD) {
+                health = Math.max(0, health - HEALTH_PENALTY);
+                next = State.SLEEPING;
+            }
+        }
+
+        // Handle hunger state
+        if (fullness <= 0 && next != State.DEAD && next != State.SLEEPING) {
+            health = Math.max(0, health - HUNGER_HEALTH_PENALTY);
+            happiness = Math.max(0, happiness - HUNGER_HAPPINESS_PENALTY);
+            next = State.HUNGRY;
+        } else if (fullness > 0 && next == State.HUNGRY) {
+            next = State.NORMAL;
+        }
+
+        // Handle happiness state
+        if (happiness <= 0 && next != State.DEAD && next != State.SLEEPING) {
+            next = State.ANGRY;
+        } else if (happiness >= HAPPINESS_THRESHOLD && next == State.ANGRY) {
+            next = State.NORMAL;
+        }
+
+        // Normal vital decreases if not sleeping
+        if (next != State.SLEEPING) {
+            fullness = Math.max(0, fullness - 1);
+            happiness = Math.max(0, happiness - (next == State.HUNGRY ? 2 : 1));
+        }
+
+        boolean died = false;
+        if (health <= 0 && next != State.DEAD) {
+            next = State.DEAD;
+            died = true;
+        }
+
+        if (health != petData.getHealthLevel() || sleep != petData.getSleepLevel()
+                || fullness != petData.getFullnessLevel() || happiness != petData.getHappinessLevel()) {
+            dirty = true;
+        }
+        petData.setHealthLevel(health);
+        petData.setSleepLevel(sleep);
+        petData.setFullnessLevel(fullness);
+        petData.setHappinessLevel(happiness);
+        setState(next);
+        fireVitalsChanged();
+
+        if (died) {
+            listeners.forEach(Listener::died);
+        }
+    }
+
+    // Timer task: runs every REWARD_INTERVAL and re-arms itself
+    private void giveReward() {
+        List<String> items = new ArrayList<>(random.nextBoolean() ? FOOD_ITEMS.keySet() : GIFT_ITEMS.keySet());
+        String item = items.get(random.nextInt(items.size()));
+        petData.getInventory().add(item);
+        inventoryChanged = true;
+
+        lastRewardTime = timers.time();
+        petData.setLastRewardTime(lastRewardTime);
+        timers.scheduleAt(lastRewardTime + REWARD_INTERVAL, this::giveReward);
+        dirty = true;
+        for (Listener listener : listeners) {
+            listener.rewardGiven(item);
+        }
+    }
+
+    // Why the command cannot be used in the pet's current state, or null if it can
+    public String unavailableReason(Command command) {
+        return state.allows(command) ? null : state.restriction;
+    }
+
+    public boolean isAvailable(Command command) {
+        return unavailableReason(command) == null;
+    }
+
+    // Milliseconds until the command can be used again, 0 if it has no cooldown running
+    public long cooldownRemaining(Command command) {
+        long cooldown;
+        if (command == Command.VET) {
+            cooldown = VET_COOLDOWN;
+        } else if (command == Command.PLAY) {
+            cooldown = PLAY_COOLDOWN;
+        } else {
+            return 0;
+        }
+        Long lastUsed = lastCommandTime.get(command);
+        return lastUsed == null ? 0 : Math.max(0, lastUsed + cooldown - now);
+    }
+
+    public boolean goToBed() {
+        record(Command.GO_TO_BED.name(), null);
+        if (!isAvailable(Command.GO_TO_BED)) {
+            return false;
+        }
+        setState(State.SLEEPING);
+        petData.setSleepLevel(0.0); // Start sleep recovery
+        addScore("put_to_bed", 5); // Small bonus for helping pet sleep
+        commandApplied();
+        return true;
+    }
+
+    public boolean vet() {
+        record(Command.VET.name(), null);
+        if (!isAvailable(Command.VET) || cooldownRemaining(Command.VET) > 0) {
+            return false;
+        }
+        petData.setHealthLevel(Math.min(100, petData.getHealthLevel() + 40));
+        startCooldown(Command.VET, VET_COOLDOWN);
+        addScore("vet_visit", -10); // Penalty for needing vet care
+        commandApplied();
+        return true;
+    }
+
+    public boolean play() {
+        record(Command.PLAY.name(), null);
+        if (!isAvailable(Command.PLAY) || cooldownRemaining(Command.PLAY) > 0) {
+            return false;
+        }
+        double newHappiness = Math.min(100, petData.getHappinessLevel() + 25);
+        petData.setHappinessLevel(newHappiness);
+        startCooldown(Command.PLAY, PLAY_COOLDOWN);
+        addScore("played_with_pet", 15); // Bonus for playing with pet
+        if (newHappiness >= HAPPINESS_THRESHOLD && state == State.ANGRY) {
+            setState(State.NORMAL);
+        }
+        commandApplied();
+        return true;
+    }
+
+    public boolean exercise() {
+        record(Command.EXERCISE.name(), null);
+        if (!isAvailable(Command.EXERCISE)) {
+            return false;
+        }
+        petData.setSleepLevel(Math.max(0, petData.getSleepLevel() - 10));
+        petData.setFullnessLevel(Math.max(0, petData.getFullnessLevel() - 15));
+        petData.setHealthLevel(Math.min(100, petData.getHealthLevel() + 15));
+        addScore("exercised_pet", 10); // Bonus for exercising pet
+        commandApplied();
+        return true;
+    }
+
+    // Feed one food item from the inventory
+    public boolean feed(String food) {
+        record(Command.FEED.name(), food);
+        Item item = FOOD_ITEMS.get(food);
+        if (item == null || !isAvailable(Command.FEED) || !petData.getInventory().remove(food)) {
+            return false;
+        }
+        inventoryChanged = true;
+        petData.setFullnessLevel(Math.min(100, petData.getFullnessLevel() + item.value));
+        addScore("fed_pet", item.points);
+        if (state == State.HUNGRY) {
+            setState(State.NORMAL);
+        }
+        commandApplied();
+        return true;
+    }
+
+    // Give one toy from the inventory
+    public boolean giveGift(String gift) {
+        record(Command.GIVE_GIFT.name(), gift);
+        Item item = GIFT_ITEMS.get(gift);
+        if (item == null || !isAvailable(Command.GIVE_GIFT) || !petData.getInventory().remove(gift)) {
+            return false;
+        }
+        inventoryChanged = true;
+        double currentHappiness = petData.getHappinessLevel();
+        petData.setHappinessLevel(Math.min(100, currentHappiness + item.value));
+        addScore("gave_gift", item.points);
+        if (currentHappiness >= HAPPINESS_THRESHOLD && state == State.ANGRY) {
+            setState(State.NORMAL);
+        }
+        commandApplied();
+        return true;
+    }
+
+    // Why the inventory slot cannot be used right now, or null if it can
+    public String itemRejection(int index) {
+        if (state == State.DEAD) {
+            return State.DEAD.restriction;
+        }
+        if (state == State.SLEEPING) {
+            return "Your pet is sleeping and cannot use items right now.";
+        }
+        List<String> inventory = petData.getInventory();
+        if (state == State.ANGRY && (index >= inventory.size() || !inventory.get(index).equalsIgnoreCase("toy"))) {
+            return "Your pet is angry and will only accept toys!";
+        }
+        return null;
+    }
+
+    // Apply the inventory slot's quick-use effect
+    public boolean useItem(int index) {
+        record("USE_ITEM", String.valueOf(index));
+        List<String> inventory = petData.getInventory();
+        if (itemRejection(index) != null || index >= inventory.size()) {
+            return false;
+        }
+        switch (inventory.get(index).toLowerCase()) {
+            case "food":
+                petData.setFullnessLevel(100);
+                if (state == State.HUNGRY) {
+                    setState(State.NORMAL);
+                }
+                break;
+            case "medicine":
+                petData.setHealthLevel(100);
+                break;
+            case "toy":
+                double newHappiness = Math.min(100, petData.getHappinessLevel() + 30);
+                petData.setHappinessLevel(newHappiness);
+                if (newHappiness >= HAPPINESS_THRESHOLD && state == State.ANGRY) {
+                    setState(State.NORMAL);
+                }
+                break;
+        }
+        commandApplied();
+        return true;
+    }
+
+    private void startCooldown(Command command, long cooldown) {
+        lastCommandTime.put(command, now);
+        timers.scheduleAt(now + cooldown, () -> {
+            for (Listener listener : listeners) {
+                listener.cooldownEnded(command);
+            }
+        });
+    }
+
+    // Run a task on the first tick at least delayMillis of simulation time from now
+    TimingWheel.Timeout schedule(long delayMillis, Runnable task) {
+        TimingWheel.Timeout timeout = timers.scheduleAt(now + delayMillis, task);
+        listeners.forEach(Listener::scheduleChanged);
+        return timeout;
+    }
+
+    // Record points in the ledger; the pet's score always mirrors the ledger total
+    private void addScore(String action, int points) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault());
+        scoreLedger.record(action, points, time);
+        petData.setScore(scoreLedger.getTotalScore());
+        scoreChanged = true;
+    }
+
+    private void commandApplied() {
+        dirty = true;
+        publish();
+        fireVitalsChanged();
+        listeners.forEach(Listener::scheduleChanged);
+    }
+
+    private void setState(State newState) {
+        if (newState == state) {
+            return;
+        }
+        if (!state.canChangeTo(newState)) {
+            throw new IllegalStateException("A " + state.id + " pet cannot become " + newState.id);
+        }
+        State oldState = state;
+        state = newState;
+        petData.setPetState(newState.id);
+        for (Listener listener : listeners) {
+            listener.stateChanged(oldState, newState);
+        }
+    }
+
+    // Copy-on-write: the inventory is only copied when it changed since the
+    // last snapshot, otherwise the new snapshot shares the previous list
+    private void publish() {
+        PetSnapshot previous = snapshot.get();
+        List<String> inventory = previous == null || inventoryChanged
+            ? Collections.unmodifiableList(new ArrayList<>(petData.getInventory()))
+            : previous.getInventory();
+        inventoryChanged = false;
+        snapshot.set(new PetSnapshot(petData, state, inventory, lastRewardTime, now,
+            cooldownRemaining(Command.VET), cooldownRemaining(Command.PLAY)));
+    }
+
+    // Latest published state of the pet; safe to call from any thread
+    public PetSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    private void fireVitalsChanged() {
+        listeners.forEach(Listener::vitalsChanged);
+    }
+
+    public PetState getPetData() {
+        return petData;
+    }
+
+    public ScoreLedger getScoreLedger() {
+        return scoreLedger;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Current simulation time in epoch milliseconds
+    public long getTime() {
+        return now;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getLastRewardTime() {
+        return lastRewardTime;
+    }
+
+    // True when the pet has changed since the last markSaved()
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public boolean isScoreChanged() {
+        return scoreChanged;
+    }
+
+    public void markSaved() {
+        dirty = false;
+        scoreChanged = false;
+    }
+
+    private static Map<String, Item> items(Item... items) {
+        Map<String, Item> map = new LinkedHashMap<>();
+        for (Item item : items) {
+            map.put(item.name, item);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+}
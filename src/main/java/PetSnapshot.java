@@ -0,0 +1,62 @@
+package com.nudge;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a pet at one moment of simulation time. PetSimulation
+ * publishes a new snapshot after every step and command, so saves, exporters
+ * and monitors on other threads can read a consistent pet without taking a
+ * lock or waiting for the thread that runs the simulation.
+ */
+public final class PetSnapshot {
+    private final String playerId;
+    private final String petName;
+    private final String petType;
+    private final PetSimulation.State state;
+    private final double healthLevel;
+    private final double sleepLevel;
+    private final double fullnessLevel;
+    private final double happinessLevel;
+    private final int score;
+    private final List<String> inventory;
+    private final long lastRewardTime;
+    private final long time;
+    private final long vetCooldown;
+    private final long playCooldown;
+
+    PetSnapshot(PetState petData, PetSimulation.State state, List<String> inventory, long lastRewardTime,
+            long time, long vetCooldown, long playCooldown) {
+        this.playerId = petData.getPlayerId();
+        this.petName = petData.getPetName();
+        this.petType = petData.getPetType();
+        this.state = state;
+        this.healthLevel = petData.getHealthLevel();
+        this.sleepLevel = petData.getSleepLevel();
+        this.fullnessLevel = petData.getFullnessLevel();
+        this.happinessLevel = petData.getHappinessLevel();
+        this.score = petData.getScore();
+        this.inventory = inventory;
+        this.lastRewardTime = lastRewardTime;
+        this.time = time;
+        this.vetCooldown = vetCooldown;
+        this.playCooldown = playCooldown;
+    }
+
+    public String getPlayerId() { return playerId; }
+    public String getPetName() { return petName; }
+    public String getPetType() { return petType; }
+    public PetSimulation.State getState() { return state; }
+    public double getHealthLevel() { return healthLevel; }
+    public double getSleepLevel() { return sleepLevel; }
+    public double getFullnessLevel() { return fullnessLevel; }
+    public double getHappinessLevel() { return happinessLevel; }
+    public int getScore() { return score; }
+    // Unmodifiable; shared with later snapshots until the inventory changes
+    public List<String> getInventory() { return inventory; }
+    public long getLastRewardTime() { return lastRewardTime; }
+    // Simulation time the snapshot was taken at, in epoch milliseconds
+    public long getTime() { return time; }
+    // Milliseconds left on each cooldown at getTime()
+    public long getVetCooldown() { return vetCooldown; }
+    public long getPlayCooldown() { return playCooldown; }
+}
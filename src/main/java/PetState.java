@@ -0,0 +1,116 @@
+package com.nudge;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import java.util.*;
+
+/**
+ * Saved state of a player's pet (pet_<id>.json). Vitals are kept as primitive
+ * fields so the game loop can update them every tick without boxing.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PetState {
+    private String playerId;
+    private String petName;
+    private String petType;
+    private String petState;
+    private int score;
+    private double healthLevel;
+    private double sleepLevel;
+    private double fullnessLevel;
+    private double happinessLevel;
+    private String lastFed;
+    private String lastSlept;
+    private List<String> inventory = new ArrayList<>();
+    private long lastRewardTime;
+    private long totalPlayTime;
+    private long lastSessionStart;
+
+    // Fields written by other versions of the game, kept so they survive a save
+    private Map<String, Object> other;
+
+    public PetState copy() {
+        PetState copy = new PetState();
+        copy.playerId = playerId;
+        copy.petName = petName;
+        copy.petType = petType;
+        copy.petState = petState;
+        copy.score = score;
+        copy.healthLevel = healthLevel;
+        copy.sleepLevel = sleepLevel;
+        copy.fullnessLevel = fullnessLevel;
+        copy.happinessLevel = happinessLevel;
+        copy.lastFed = lastFed;
+        copy.lastSlept = lastSlept;
+        copy.inventory = new ArrayList<>(inventory);
+        copy.lastRewardTime = lastRewardTime;
+        copy.totalPlayTime = totalPlayTime;
+        copy.lastSessionStart = lastSessionStart;
+        copy.other = other == null ? null : new LinkedHashMap<>(other);
+        return copy;
+    }
+
+    public String getPlayerId() { return playerId; }
+    public void setPlayerId(String playerId) { this.playerId = playerId; }
+
+    public String getPetName() { return petName; }
+    public void setPetName(String petName) { this.petName = petName; }
+
+    public String getPetType() { return petType; }
+    public void setPetType(String petType) { this.petType = petType; }
+
+    public String getPetState() { return petState; }
+    public void setPetState(String petState) { this.petState = petState; }
+
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+
+    public double getHealthLevel() { return healthLevel; }
+    public void setHealthLevel(double healthLevel) { this.healthLevel = healthLevel; }
+
+    public double getSleepLevel() { return sleepLevel; }
+    public void setSleepLevel(double sleepLevel) { this.sleepLevel = sleepLevel; }
+
+    public double getFullnessLevel() { return fullnessLevel; }
+    public void setFullnessLevel(double fullnessLevel) { this.fullnessLevel = fullnessLevel; }
+
+    public double getHappinessLevel() { return happinessLevel; }
+    public void setHappinessLevel(double happinessLevel) { this.happinessLevel = happinessLevel; }
+
+    public String getLastFed() { return lastFed; }
+    public void setLastFed(String lastFed) { this.lastFed = lastFed; }
+
+    public String getLastSlept() { return lastSlept; }
+    public void setLastSlept(String lastSlept) { this.lastSlept = lastSlept; }
+
+    public List<String> getInventory() { return inventory; }
+    public void setInventory(List<String> inventory) {
+        this.inventory = inventory != null ? inventory : new ArrayList<>();
+    }
+
+    public long getLastRewardTime() { return lastRewardTime; }
+    public void setLastRewardTime(long lastRewardTime) { this.lastRewardTime = lastRewardTime; }
+
+    public long getTotalPlayTime() { return totalPlayTime; }
+    public void setTotalPlayTime(long totalPlayTime) { this.totalPlayTime = totalPlayTime; }
+
+    public long getLastSessionStart() { return lastSessionStart; }
+    public void setLastSessionStart(long lastSessionStart) { this.lastSessionStart = lastSessionStart; }
+
+    @JsonAnyGetter
+    public Map<String, Object> getOther() {
+        return other != null ? other : Collections.emptyMap();
+    }
+
+    @JsonAnySetter
+    public void setOther(String name, Object value) {
+        if (other == null) {
+            other = new LinkedHashMap<>();
+        }
+        other.put(name, value);
+    }
+}
@@ -0,0 +1,70 @@
+package com.nudge;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * What the game screen shows about the pet, as observable properties that
+ * its controls bind to. update() copies the simulation into the properties;
+ * a property only notifies its listeners when its value actually changed, so
+ * a tick that leaves a vital or the score alone does not touch its control.
+ * Use from the FX thread.
+ */
+class PetViewModel {
+    private final ReadOnlyDoubleWrapper health = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyDoubleWrapper sleep = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyDoubleWrapper fullness = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyDoubleWrapper happiness = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyIntegerWrapper score = new ReadOnlyIntegerWrapper();
+    private final Map<PetSimulation.Command, ReadOnlyBooleanWrapper> available =
+        new EnumMap<>(PetSimulation.Command.class);
+
+    PetViewModel() {
+        for (PetSimulation.Command command : PetSimulation.Command.values()) {
+            available.put(command, new ReadOnlyBooleanWrapper());
+        }
+    }
+
+    void update(PetSimulation simulation) {
+        PetState petData = simulation.getPetData();
+        health.set(petData.getHealthLevel() / 100.0);
+        sleep.set(petData.getSleepLevel() / 100.0);
+        fullness.set(petData.getFullnessLevel() / 100.0);
+        happiness.set(petData.getHappinessLevel() / 100.0);
+        score.set(petData.getScore());
+        available.forEach((command, property) -> property.set(simulation.isAvailable(command)));
+    }
+
+    // Vitals run from 0 to 1, ready for ProgressBar.progressProperty()
+    ReadOnlyDoubleProperty healthProperty() {
+        return health.getReadOnlyProperty();
+    }
+
+    ReadOnlyDoubleProperty sleepProperty() {
+        return sleep.getReadOnlyProperty();
+    }
+
+    ReadOnlyDoubleProperty fullnessProperty() {
+        return fullness.getReadOnlyProperty();
+    }
+
+    ReadOnlyDoubleProperty happinessProperty() {
+        return happiness.getReadOnlyProperty();
+    }
+
+    ReadOnlyIntegerProperty scoreProperty() {
+        return score.getReadOnlyProperty();
+    }
+
+    // Whether the pet's state accepts the command; cooldowns are checked when it is used
+    ReadOnlyBooleanProperty availableProperty(PetSimulation.Command command) {
+        return available.get(command).getReadOnlyProperty();
+    }
+}
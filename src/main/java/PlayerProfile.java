@@ -0,0 +1,110 @@
+package com.nudge;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Saved player account (player_<id>.json).
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlayerProfile {
+    private String playerId;
+    private String username;
+    private String accountType;
+    private int loginStreak;
+    private List<String> achievements = new ArrayList<>();
+    private String creationDate;
+    private Settings settings = new Settings();
+
+    // Fields written by other versions of the game, kept so they survive a save
+    private Map<String, Object> other;
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public static class Settings {
+        private boolean soundEnabled = true;
+        private boolean parentalControls;
+
+        public Settings copy() {
+            Settings copy = new Settings();
+            copy.soundEnabled = soundEnabled;
+            copy.parentalControls = parentalControls;
+            return copy;
+        }
+
+        public boolean isSoundEnabled() { return soundEnabled; }
+        public void setSoundEnabled(boolean soundEnabled) { this.soundEnabled = soundEnabled; }
+
+        public boolean isParentalControls() { return parentalControls; }
+        public void setParentalControls(boolean parentalControls) { this.parentalControls = parentalControls; }
+    }
+
+    // Profile for a newly created child account
+    public static PlayerProfile newChild(String playerId, String username) {
+        PlayerProfile profile = new PlayerProfile();
+        profile.playerId = playerId;
+        profile.username = username;
+        profile.accountType = "child";
+        profile.loginStreak = 1;
+        profile.creationDate = LocalDateTime.now().toString();
+        profile.settings.setSoundEnabled(true);
+        profile.settings.setParentalControls(false);
+        return profile;
+    }
+
+    public PlayerProfile copy() {
+        PlayerProfile copy = new PlayerProfile();
+        copy.playerId = playerId;
+        copy.username = username;
+        copy.accountType = accountType;
+        copy.loginStreak = loginStreak;
+        copy.achievements = new ArrayList<>(achievements);
+        copy.creationDate = creationDate;
+        copy.settings = settings.copy();
+        copy.other = other == null ? null : new LinkedHashMap<>(other);
+        return copy;
+    }
+
+    public String getPlayerId() { return playerId; }
+    public void setPlayerId(String playerId) { this.playerId = playerId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getAccountType() { return accountType; }
+    public void setAccountType(String accountType) { this.accountType = accountType; }
+
+    public int getLoginStreak() { return loginStreak; }
+    public void setLoginStreak(int loginStreak) { this.loginStreak = loginStreak; }
+
+    public List<String> getAchievements() { return achievements; }
+    public void setAchievements(List<String> achievements) {
+        this.achievements = achievements != null ? achievements : new ArrayList<>();
+    }
+
+    public String getCreationDate() { return creationDate; }
+    public void setCreationDate(String creationDate) { this.creationDate = creationDate; }
+
+    public Settings getSettings() { return settings; }
+    public void setSettings(Settings settings) {
+        this.settings = settings != null ? settings : new Settings();
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getOther() {
+        return other != null ? other : Collections.emptyMap();
+    }
+
+    @JsonAnySetter
+    public void setOther(String name, Object value) {
+        if (other == null) {
+            other = new LinkedHashMap<>();
+        }
+        other.put(name, value);
+    }
+}
@@ -0,0 +1,17 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * On-disk encoding of save files. Every codec is backed by a Jackson
+ * ObjectMapper, so the same beans and trees can be written as text or binary.
+ */
+public interface SaveCodec {
+    // File extension including the dot, e.g. ".json"
+    String extension();
+
+    ObjectMapper mapper();
+
+    // True if a file starting with these bytes was written by this codec
+    boolean matches(byte[] header, int length);
+}
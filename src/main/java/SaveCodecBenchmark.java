@@ -0,0 +1,114 @@
+package com.nudge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the save codecs on generated games, written to a temporary
+ * directory so real saves are never touched.
+ *
+ *   java com.nudge.SaveCodecBenchmark [games]   (default 1000)
+ *
+ * For each codec it reports the bytes on disk per player, pet and score file,
+ * the time to write and fully read them, and the time for a cold Load-screen
+ * scan, which skims the summary fields of every player and pet file the way
+ * a manifest rebuild does. A warm listSavedGames is served from the manifest
+ * without opening any save, so it costs the same whatever the codec.
+ */
+public class SaveCodecBenchmark {
+    private static final int ROUNDS = 5;
+    private static final Set<String> PLAYER_FIELDS = Set.of("player_id", "username", "creation_date");
+    private static final Set<String> PET_FIELDS = Set.of("pet_type", "score", "last_session_start");
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        System.out.println(games + " games, best of " + ROUNDS + " rounds");
+        System.out.println("codec   player B  pet B  score B  write ms  read ms  scan ms");
+        for (SaveCodec codec : List.of(new JsonSaveCodec(), new SmileSaveCodec())) {
+            run(codec, games);
+        }
+    }
+
+    private static void run(SaveCodec codec, int games) throws IOException {
+        File dir = Files.createTempDirectory("nudge-codec").toFile();
+        try {
+            Random random = new Random(1);
+            Object[][] documents = new Object[games][];
+            for (int i = 0; i < games; i++) {
+                documents[i] = game("player" + i, random);
+            }
+
+            long write = Long.MAX_VALUE;
+            long read = Long.MAX_VALUE;
+            long scan = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < games; i++) {
+                    codec.mapper().writeValue(file(dir, "player", i, codec), documents[i][0]);
+                    codec.mapper().writeValue(file(dir, "pet", i, codec), documents[i][1]);
+                    codec.mapper().writeValue(file(dir, "score", i, codec), documents[i][2]);
+                }
+                write = Math.min(write, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int i = 0; i < games; i++) {
+                    codec.mapper().readValue(file(dir, "player", i, codec), PlayerProfile.class);
+                    codec.mapper().readValue(file(dir, "pet", i, codec), PetState.class);
+                    codec.mapper().readValue(file(dir, "score", i, codec), ScoreLedger.class);
+                }
+                read = Math.min(read, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int i = 0; i < games; i++) {
+                    JsonManager.readFields(file(dir, "player", i, codec), PLAYER_FIELDS);
+                    JsonManager.readFields(file(dir, "pet", i, codec), PET_FIELDS);
+                }
+                scan = Math.min(scan, System.nanoTime() - start);
+            }
+
+            System.out.printf("%-7s %-9d %-6d %-8d %-9.1f %-8.1f %.1f%n", codec.extension(),
+                size(dir, "player", games, codec), size(dir, "pet", games, codec), size(dir, "score", games, codec),
+                write / 1e6, read / 1e6, scan / 1e6);
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    // A player, a pet part way through a game and its score history
+    private static Object[] game(String playerId, Random random) {
+        PlayerProfile player = PlayerProfile.newChild(playerId, "Player " + random.nextInt(1000));
+        PetState pet = PetSimulation.newPet(playerId, "Pet", "type" + (1 + random.nextInt(3)), 0);
+        PetSimulation simulation = new PetSimulation(pet, new ScoreLedger(playerId), 0, random.nextLong());
+        for (int i = 0; i < 20; i++) {
+            simulation.step(random.nextInt(600) * PetSimulation.TICK_MILLIS);
+            simulation.execute(PetSimulation.Command.values()[random.nextInt(PetSimulation.Command.values().length)], null);
+        }
+        ScoreLedger ledger = simulation.getScoreLedger();
+        ledger.record("Benchmark", 1, LocalDateTime.now());
+        return new Object[] {player, pet, ledger};
+    }
+
+    private static File file(File dir, String kind, int index, SaveCodec codec) {
+        return new File(dir, kind + "_" + index + codec.extension());
+    }
+
+    // Average file size in bytes
+    private static long size(File dir, String kind, int games, SaveCodec codec) {
+        long total = 0;
+        for (int i = 0; i < games; i++) {
+            total += file(dir, kind, i, codec).length();
+        }
+        return total / games;
+    }
+}
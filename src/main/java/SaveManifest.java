@@ -0,0 +1,110 @@
+package com.nudge;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Index of every saved game (saves_manifest file), kept up to date as player,
+ * pet and score files are written or deleted so the Load screen can be built
+ * from a single small read instead of opening every save.
+ */
+class SaveManifest {
+    static final String FILE_NAME = "saves_manifest";
+    static final int VERSION = 1;
+
+    // A change to last_played alone only rewrites the manifest this often
+    private static final long LAST_PLAYED_RESOLUTION = 60000; // 1 minute in milliseconds
+
+    private final Map<String, SavedGame> games = new LinkedHashMap<>();
+    private final Map<String, Long> lastPlayedWritten = new HashMap<>();
+
+    // On-disk layout
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Document {
+        public int version;
+        public List<SavedGame> games = new ArrayList<>();
+    }
+
+    SaveManifest(Collection<SavedGame> games) {
+        for (SavedGame game : games) {
+            this.games.put(game.getPlayerId(), game);
+        }
+    }
+
+    synchronized List<SavedGame> list() {
+        List<SavedGame> copies = new ArrayList<>(games.size());
+        for (SavedGame game : games.values()) {
+            copies.add(game.copy());
+        }
+        return copies;
+    }
+
+    synchronized void updatePlayer(PlayerProfile player) throws IOException {
+        SavedGame game = entry(player.getPlayerId());
+        if (Objects.equals(game.getUsername(), player.getUsername())
+                && Objects.equals(game.getCreationDate(), player.getCreationDate())) {
+            return;
+        }
+        game.setUsername(player.getUsername());
+        game.setCreationDate(player.getCreationDate());
+        write();
+    }
+
+    synchronized void updatePet(PetState pet) throws IOException {
+        SavedGame game = entry(pet.getPlayerId());
+        boolean changed = !Objects.equals(game.getPetType(), pet.getPetType()) || game.getScore() != pet.getScore();
+        game.setPetType(pet.getPetType());
+        game.setScore(pet.getScore());
+        game.setLastPlayed(pet.getLastSessionStart());
+        long written = lastPlayedWritten.getOrDefault(pet.getPlayerId(), 0L);
+        if (changed || pet.getLastSessionStart() - written >= LAST_PLAYED_RESOLUTION) {
+            write();
+        }
+    }
+
+    synchronized void updateScore(String playerId, int score) throws IOException {
+        SavedGame game = entry(playerId);
+        if (game.getScore() != score) {
+            game.setScore(score);
+            write();
+        }
+    }
+
+    synchronized void remove(String playerId) throws IOException {
+        lastPlayedWritten.remove(playerId);
+        if (games.remove(playerId) != null) {
+            write();
+        }
+    }
+
+    synchronized Set<String> playerIds() {
+        return new HashSet<>(games.keySet());
+    }
+
+    // Swap in freshly read entries and drop those whose saves are gone
+    synchronized void refresh(Collection<SavedGame> fresh, Collection<String> removed) throws IOException {
+        for (String playerId : removed) {
+            games.remove(playerId);
+            lastPlayedWritten.remove(playerId);
+        }
+        for (SavedGame game : fresh) {
+            games.put(game.getPlayerId(), game);
+        }
+        write();
+    }
+
+    synchronized void write() throws IOException {
+        Document document = new Document();
+        document.version = VERSION;
+        document.games.addAll(games.values());
+        JsonManager.writeDataFile(FILE_NAME, document);
+        for (SavedGame game : games.values()) {
+            lastPlayedWritten.put(game.getPlayerId(), game.getLastPlayed());
+        }
+    }
+
+    private SavedGame entry(String playerId) {
+        return games.computeIfAbsent(playerId, SavedGame::new);
+    }
+}
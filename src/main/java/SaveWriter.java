@@ -0,0 +1,127 @@
+package com.nudge;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background writer for pet and score saves. Callers hand over the current pet data and
+ * return immediately; a single writer thread persists it. Each player has at
+ * most one queued write, and a newer submission replaces an older one that has
+ * not been written yet, so bursts of saves collapse into a single file write.
+ */
+public class SaveWriter {
+    private static final long FLUSH_TIMEOUT_SECONDS = 10;
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "nudge-save-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Latest unwritten pet data per player id
+    private static final ConcurrentHashMap<String, PetState> pendingPets = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ScoreLedger> pendingScores = new ConcurrentHashMap<>();
+    private static final AtomicReference<IOException> lastFailure = new AtomicReference<>();
+
+    static {
+        // Make sure nothing is lost when the app is closed with System.exit
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nudge-save-flush"));
+    }
+
+    // Queue the pet data for writing; only the newest state per player is kept
+    public static void submitPetData(PetState petData) {
+        // The game keeps mutating its copy on the FX thread, so the writer works on a copy
+        String playerId = petData.getPlayerId();
+        if (pendingPets.put(playerId, petData.copy()) == null) {
+            writer.execute(() -> writePending(playerId));
+        }
+    }
+
+    // Queue the score ledger for writing; only the newest ledger per player is kept
+    public static void submitScoreLedger(ScoreLedger ledger) {
+        String playerId = ledger.getPlayerId();
+        if (pendingScores.put(playerId, ledger.copy()) == null) {
+            writer.execute(() -> writePendingScore(playerId));
+        }
+    }
+
+    // Block until every queued write has reached disk. Throws the most recent
+    // write failure since the last flush, if any.
+    public static void flush() throws IOException {
+        try {
+            writer.submit(() -> { }).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing saves", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Failed to flush saves", e);
+        }
+
+        IOException failure = lastFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Write one player's queued saves now and wait for them. Runs on the writer
+    // thread, so it cannot overtake an older write for the same player.
+    public static void flush(String playerId) throws IOException {
+        Future<?> written = writer.submit(() -> {
+            PetState petData = pendingPets.remove(playerId);
+            if (petData != null) {
+                JsonManager.savePetData(petData);
+            }
+            ScoreLedger ledger = pendingScores.remove(playerId);
+            if (ledger != null) {
+                JsonManager.saveScoreLedger(ledger);
+            }
+            return null;
+        });
+        try {
+            written.get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing saves", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to flush saves", e);
+        } catch (TimeoutException e) {
+            throw new IOException("Failed to flush saves", e);
+        }
+    }
+
+    private static void writePending(String playerId) {
+        PetState petData = pendingPets.remove(playerId);
+        if (petData == null) {
+            return;
+        }
+        try {
+            JsonManager.savePetData(petData);
+        } catch (IOException e) {
+            e.printStackTrace();
+            lastFailure.set(e);
+        }
+    }
+
+    private static void writePendingScore(String playerId) {
+        ScoreLedger ledger = pendingScores.remove(playerId);
+        if (ledger == null) {
+            return;
+        }
+        try {
+            JsonManager.saveScoreLedger(ledger);
+        } catch (IOException e) {
+            e.printStackTrace();
+            lastFailure.set(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.nudge;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Summary of one saved game as shown on the Load screen.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SavedGame {
+    private String playerId;
+    private String username;
+    private String creationDate;
+    private String petType;
+    private int score;
+    private long lastPlayed;
+
+    public SavedGame() {
+    }
+
+    public SavedGame(String playerId) {
+        this.playerId = playerId;
+    }
+
+    public SavedGame copy() {
+        SavedGame copy = new SavedGame(playerId);
+        copy.username = username;
+        copy.creationDate = creationDate;
+        copy.petType = petType;
+        copy.score = score;
+        copy.lastPlayed = lastPlayed;
+        return copy;
+    }
+
+    public String getPlayerId() { return playerId; }
+    public void setPlayerId(String playerId) { this.playerId = playerId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getCreationDate() { return creationDate; }
+    public void setCreationDate(String creationDate) { this.creationDate = creationDate; }
+
+    public String getPetType() { return petType; }
+    public void setPetType(String petType) { this.petType = petType; }
+
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+
+    public long getLastPlayed() { return lastPlayed; }
+    public void setLastPlayed(long lastPlayed) { this.lastPlayed = lastPlayed; }
+}
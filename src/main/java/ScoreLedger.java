@@ -0,0 +1,214 @@
+package com.nudge;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Player's score history (score_<id>.json). Only the last RECENT_ACTIONS_KEPT
+ * actions are kept, in a ring buffer; everything older survives as per-day and
+ * per-action totals that are updated as each action is recorded. The saved
+ * document therefore stays the same size however long the pet is played with,
+ * and totals are read without walking the history.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScoreLedger {
+    static final int RECENT_ACTIONS_KEPT = 50;
+    static final int DAYS_KEPT = 366;
+
+    private String playerId;
+    private int totalScore;
+
+    // Ring buffer of recent actions: head is the next slot to write
+    private final Action[] recent = new Action[RECENT_ACTIONS_KEPT];
+    private int head;
+    private int recentCount;
+
+    // ISO dates sort chronologically, so the oldest day is always first
+    private TreeMap<String, Integer> dailyTotals = new TreeMap<>();
+    private Map<String, ActionTotal> actionTotals = new LinkedHashMap<>();
+
+    // Fields written by other versions of the game, kept so they survive a save
+    private Map<String, Object> other;
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public static class Action {
+        private final String action;
+        private final int points;
+        private final String timestamp;
+
+        @JsonCreator
+        public Action(@JsonProperty("action") String action,
+                      @JsonProperty("points") int points,
+                      @JsonProperty("timestamp") String timestamp) {
+            this.action = action;
+            this.points = points;
+            this.timestamp = timestamp;
+        }
+
+        public String getAction() { return action; }
+        public int getPoints() { return points; }
+        public String getTimestamp() { return timestamp; }
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public static class ActionTotal {
+        private int count;
+        private int points;
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+
+        public int getPoints() { return points; }
+        public void setPoints(int points) { this.points = points; }
+    }
+
+    public ScoreLedger() {
+    }
+
+    public ScoreLedger(String playerId) {
+        this.playerId = playerId;
+    }
+
+    // Add an action's points to the total, the recent history and the aggregates
+    public void record(String action, int points, LocalDateTime time) {
+        totalScore += points;
+        push(new Action(action, points, time.toString()));
+
+        dailyTotals.merge(time.toLocalDate().toString(), points, Integer::sum);
+        while (dailyTotals.size() > DAYS_KEPT) {
+            dailyTotals.pollFirstEntry();
+        }
+
+        ActionTotal total = actionTotals.computeIfAbsent(action, a -> new ActionTotal());
+        total.count++;
+        total.points += points;
+    }
+
+    // Points earned on one day, 0 if nothing was recorded or the day has aged out
+    public int getDayTotal(LocalDate date) {
+        return dailyTotals.getOrDefault(date.toString(), 0);
+    }
+
+    public int getActionCount(String action) {
+        ActionTotal total = actionTotals.get(action);
+        return total != null ? total.count : 0;
+    }
+
+    public int getActionPoints(String action) {
+        ActionTotal total = actionTotals.get(action);
+        return total != null ? total.points : 0;
+    }
+
+    // Older saves only have the recent actions; derive the aggregates from them
+    void backfillAggregates() {
+        if (!dailyTotals.isEmpty() || !actionTotals.isEmpty()) {
+            return;
+        }
+        for (Action action : getRecentActions()) {
+            if (action.timestamp != null && action.timestamp.length() >= 10) {
+                // ISO timestamps start with the date
+                dailyTotals.merge(action.timestamp.substring(0, 10), action.points, Integer::sum);
+            }
+            ActionTotal total = actionTotals.computeIfAbsent(action.action, a -> new ActionTotal());
+            total.count++;
+            total.points += action.points;
+        }
+    }
+
+    public ScoreLedger copy() {
+        ScoreLedger copy = new ScoreLedger(playerId);
+        copy.totalScore = totalScore;
+        System.arraycopy(recent, 0, copy.recent, 0, recent.length);
+        copy.head = head;
+        copy.recentCount = recentCount;
+        copy.dailyTotals = new TreeMap<>(dailyTotals);
+        actionTotals.forEach((action, total) -> {
+            ActionTotal totalCopy = new ActionTotal();
+            totalCopy.count = total.count;
+            totalCopy.points = total.points;
+            copy.actionTotals.put(action, totalCopy);
+        });
+        copy.other = other == null ? null : new LinkedHashMap<>(other);
+        return copy;
+    }
+
+    private void push(Action action) {
+        recent[head] = action;
+        head = (head + 1) % recent.length;
+        if (recentCount < recent.length) {
+            recentCount++;
+        }
+    }
+
+    public String getPlayerId() { return playerId; }
+    public void setPlayerId(String playerId) { this.playerId = playerId; }
+
+    public int getTotalScore() { return totalScore; }
+    public void setTotalScore(int totalScore) { this.totalScore = totalScore; }
+
+    // Recent actions, oldest first
+    public List<Action> getRecentActions() {
+        List<Action> actions = new ArrayList<>(recentCount);
+        int start = (head - recentCount + recent.length) % recent.length;
+        for (int i = 0; i < recentCount; i++) {
+            actions.add(recent[(start + i) % recent.length]);
+        }
+        return actions;
+    }
+
+    public void setRecentActions(List<Action> actions) {
+        Arrays.fill(recent, null);
+        head = 0;
+        recentCount = 0;
+        if (actions != null) {
+            // Older files can hold more than fit; keep the newest
+            for (Action action : actions.subList(Math.max(0, actions.size() - recent.length), actions.size())) {
+                push(action);
+            }
+        }
+    }
+
+    @JsonIgnore
+    public int getRecentActionCount() {
+        return recentCount;
+    }
+
+    public Map<String, Integer> getDailyTotals() {
+        return Collections.unmodifiableMap(dailyTotals);
+    }
+
+    public void setDailyTotals(Map<String, Integer> dailyTotals) {
+        this.dailyTotals = dailyTotals != null ? new TreeMap<>(dailyTotals) : new TreeMap<>();
+    }
+
+    public Map<String, ActionTotal> getActionTotals() {
+        return Collections.unmodifiableMap(actionTotals);
+    }
+
+    public void setActionTotals(Map<String, ActionTotal> actionTotals) {
+        this.actionTotals = actionTotals != null ? new LinkedHashMap<>(actionTotals) : new LinkedHashMap<>();
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getOther() {
+        return other != null ? other : Collections.emptyMap();
+    }
+
+    @JsonAnySetter
+    public void setOther(String name, Object value) {
+        if (other == null) {
+            other = new LinkedHashMap<>();
+        }
+        other.put(name, value);
+    }
+}
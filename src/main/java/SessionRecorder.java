@@ -0,0 +1,98 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recording of one play session, one JSON record per line:
+ *   {"seed":..,"start":..,"pet":{..}}            how the simulation was created
+ *   {"t":61000,"cmd":"FEED","arg":"Basic Food"}  a command, t ms after the start
+ *   {"t":900000,"end":{..}}                      when it stopped, and the final pet
+ * With the seed fixed the simulation is deterministic, so the commands and
+ * their times are enough to reproduce the session exactly (see SessionReplay).
+ */
+public class SessionRecorder implements Closeable {
+    // -Dnudge.record=true records every game and server session to data/recordings
+    public static final boolean ENABLED = Boolean.getBoolean("nudge.record");
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Writer writer;
+    private boolean failed;
+
+    public SessionRecorder(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    void header(long seed, long startTime, PetState petData) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("seed", seed);
+        record.put("start", startTime);
+        record.set("pet", mapper.valueToTree(petData));
+        write(record);
+    }
+
+    void command(long elapsed, String command, String arg) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("t", elapsed);
+        record.put("cmd", command);
+        if (arg != null) {
+            record.put("arg", arg);
+        }
+        write(record);
+    }
+
+    void end(long elapsed, PetState petData) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("t", elapsed);
+        record.set("end", mapper.valueToTree(petData));
+        write(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    // A broken recording must never interrupt the game; report once and stop writing
+    private void write(JsonNode record) {
+        if (failed) {
+            return;
+        }
+        try {
+            writer.write(mapper.writeValueAsString(record));
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = true;
+        }
+    }
+
+    static List<JsonNode> read(File file) throws IOException {
+        List<JsonNode> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    records.add(mapper.readTree(line));
+                } catch (IOException e) {
+                    // A torn final line from a session that crashed mid-write
+                    break;
+                }
+            }
+        }
+        return records;
+    }
+
+    static PetState toPetState(JsonNode node) throws IOException {
+        return mapper.treeToValue(node, PetState.class);
+    }
+}
@@ -0,0 +1,124 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Re-runs a SessionRecorder recording against PetSimulation as fast as the
+ * CPU allows and checks the pet ends up exactly as it did in the session.
+ *
+ *   java com.nudge.SessionReplay <recording.rec> [--repeat N] [--catch-up]
+ *
+ * By default every tick is simulated; --catch-up jumps between commands with
+ * PetSimulation.catchUp instead. Prints the simulated pet-hours per second.
+ * Exits with status 1 if a replay does not reproduce the recorded end state.
+ */
+public class SessionReplay {
+    private final JsonNode header;
+    private final List<JsonNode> events;
+    private final JsonNode end;
+
+    public SessionReplay(File recording) throws IOException {
+        List<JsonNode> records = SessionRecorder.read(recording);
+        if (records.isEmpty() || !records.get(0).has("seed")) {
+            throw new IOException("Not a session recording: " + recording);
+        }
+        header = records.get(0);
+        JsonNode last = records.get(records.size() - 1);
+        end = last.has("end") ? last : null;
+        events = records.subList(1, end != null ? records.size() - 1 : records.size());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: SessionReplay <recording.rec> [--repeat N] [--catch-up]");
+            System.exit(2);
+        }
+        int repeat = 1;
+        boolean catchUp = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--repeat") && i + 1 < args.length) {
+                repeat = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--catch-up")) {
+                catchUp = true;
+            }
+        }
+
+        SessionReplay replay = new SessionReplay(new File(args[0]));
+        boolean matches = true;
+        long start = System.nanoTime();
+        for (int i = 0; i < repeat; i++) {
+            matches &= replay.run(catchUp);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double petHours = replay.durationMillis() / 3_600_000.0 * repeat;
+        System.out.printf("Replayed %d command(s) over %.2f pet-hours x%d in %.3f s: %.0f pet-hours/s%n",
+            replay.events.size(), replay.durationMillis() / 3_600_000.0, repeat, seconds, petHours / seconds);
+        if (replay.end == null) {
+            System.out.println("Recording has no end record; final state not checked");
+        } else {
+            System.out.println(matches ? "Final state matches the recording" : "Final state DIFFERS from the recording");
+        }
+        System.exit(matches ? 0 : 1);
+    }
+
+    // Replay once; true if the final pet matches the recording (or there is nothing to compare)
+    public boolean run(boolean catchUp) throws IOException {
+        PetState petData = SessionRecorder.toPetState(header.get("pet"));
+        PetSimulation simulation = new PetSimulation(petData, new ScoreLedger(petData.getPlayerId()),
+            header.get("start").asLong(), header.get("seed").asLong());
+
+        long elapsed = 0;
+        for (JsonNode event : events) {
+            long t = event.get("t").asLong();
+            advance(simulation, t - elapsed, catchUp);
+            elapsed = t;
+
+            String command = event.get("cmd").asText();
+            String arg = event.hasNonNull("arg") ? event.get("arg").asText() : null;
+            if (command.equals("USE_ITEM")) {
+                simulation.useItem(Integer.parseInt(arg));
+            } else {
+                simulation.execute(PetSimulation.Command.valueOf(command), arg);
+            }
+        }
+        if (end == null) {
+            return true;
+        }
+        advance(simulation, end.get("t").asLong() - elapsed, catchUp);
+
+        PetState expected = SessionRecorder.toPetState(end.get("end"));
+        return sameOutcome(expected, simulation.getPetData());
+    }
+
+    public long durationMillis() {
+        if (end != null) {
+            return end.get("t").asLong();
+        }
+        return events.isEmpty() ? 0 : events.get(events.size() - 1).get("t").asLong();
+    }
+
+    private static void advance(PetSimulation simulation, long millis, boolean catchUp) {
+        if (catchUp) {
+            simulation.catchUp(millis);
+        } else {
+            simulation.step(millis);
+        }
+    }
+
+    // Compare what the simulation controls; play time and session stamps are the UI's
+    private static boolean sameOutcome(PetState expected, PetState actual) {
+        return expected.getHealthLevel() == actual.getHealthLevel()
+            && expected.getSleepLevel() == actual.getSleepLevel()
+            && expected.getFullnessLevel() == actual.getFullnessLevel()
+            && expected.getHappinessLevel() == actual.getHappinessLevel()
+            && expected.getScore() == actual.getScore()
+            && expected.getLastRewardTime() == actual.getLastRewardTime()
+            && expected.getInventory().equals(actual.getInventory())
+            && Objects.equals(expected.getPetState(), actual.getPetState());
+    }
+}
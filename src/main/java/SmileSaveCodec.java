@@ -0,0 +1,29 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Jackson Smile, a compact binary encoding of the JSON data model. Field names
+ * are written once per file and numbers are stored in binary, so saves are
+ * smaller and faster to parse than pretty-printed JSON.
+ */
+public class SmileSaveCodec implements SaveCodec {
+    private final ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+
+    @Override
+    public String extension() {
+        return ".sav";
+    }
+
+    @Override
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    @Override
+    public boolean matches(byte[] header, int length) {
+        // Smile documents start with the ":)\n" signature
+        return length >= 3 && header[0] == ':' && header[1] == ')' && header[2] == '\n';
+    }
+}
@@ -0,0 +1,59 @@
+package com.nudge;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.util.Duration;
+
+/**
+ * Plays a SpriteSheet in an ImageView by moving the view's viewport from frame
+ * to frame. The frames were scaled to display size at build time, so playing
+ * decodes and scales nothing. Use from the FX thread.
+ */
+class SpriteAnimator {
+    private final ImageView view;
+    private Timeline timeline;
+
+    SpriteAnimator(ImageView view) {
+        this.view = view;
+    }
+
+    void show(SpriteSheet sheet) {
+        stop();
+        view.setImage(sheet.getImage());
+        view.setViewport(sheet.viewport(0));
+        if (sheet.frameCount() < 2) {
+            return;
+        }
+
+        // One key frame per sprite frame, at the time it should appear
+        timeline = new Timeline();
+        double at = 0;
+        for (int i = 0; i < sheet.frameCount(); i++) {
+            Rectangle2D viewport = sheet.viewport(i);
+            timeline.getKeyFrames().add(new KeyFrame(Duration.millis(at), e -> view.setViewport(viewport)));
+            at += sheet.delay(i);
+        }
+        // Hold the last frame for its own delay before the cycle restarts
+        timeline.getKeyFrames().add(new KeyFrame(Duration.millis(at)));
+        timeline.setCycleCount(Animation.INDEFINITE);
+        timeline.play();
+    }
+
+    // Show a plain image, such as a placeholder
+    void show(Image image) {
+        stop();
+        view.setViewport(null);
+        view.setImage(image);
+    }
+
+    void stop() {
+        if (timeline != null) {
+            timeline.stop();
+            timeline = null;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.nudge;
+
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decoded pet sprites keyed by pet type and state. Each sprite's file is
+ * looked up once and decoded once, at the size the game shows it, and state
+ * changes are then served from memory. Sprites come from the sheets built by
+ * SpriteSheetBuilder when there is one, otherwise from the image itself.
+ * All lookups and decoding run on a background thread: sprite() returns a
+ * future, shared by everyone asking for the same file while it is decoded, so
+ * preload() and the screen never decode the same sprite twice. Rendered
+ * placeholders for pets without art, shown while a sprite loads, are cached
+ * too.
+ *
+ * Decoded sprites are shared by the states that use the same file, and are
+ * evicted least recently used first once their pixels pass the byte budget,
+ * -Dnudge.sprite.bytes (default 32 MB).
+ */
+class SpriteCache {
+    static final int SPRITE_SIZE = 400;
+
+    // Where sprites named after the pet type, e.g. type1_sleeping.png, may be found
+    private static final String[] TYPE_SPRITE_DIRS = {
+        "src/main/java/images", "src/main/resources/images", "images"
+    };
+
+    private static final SpriteCache shared = new SpriteCache(Long.getLong("nudge.sprite.bytes", 32L * 1024 * 1024));
+
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "nudge-sprite-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Stands in for "no file" in the resolved map, so missing art is not looked for again
+    private static final File NO_FILE = new File("");
+
+    private final long maxBytes;
+    // Sprites by source file and size (or placeholder text), least recently used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Which file each pet type and state uses
+    private final Map<String, File> resolved = new HashMap<>();
+    // Decodes in progress, by source file and size
+    private final Map<String, CompletableFuture<SpriteSheet>> pending = new HashMap<>();
+    private final Set<String> preloaded = new HashSet<>();
+    private long totalBytes;
+
+    private static class Entry {
+        final SpriteSheet sprite;
+        final long bytes;
+
+        Entry(SpriteSheet sprite, long bytes) {
+            this.sprite = sprite;
+            this.bytes = bytes;
+        }
+    }
+
+    SpriteCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    static SpriteCache shared() {
+        return shared;
+    }
+
+    // Decode every state of the pet type in the background
+    void preload(String petType) {
+        synchronized (this) {
+            if (!preloaded.add(petType)) {
+                return;
+            }
+        }
+        for (PetSimulation.State state : PetSimulation.State.values()) {
+            sprite(petType, state);
+        }
+    }
+
+    // Sprite for the pet in that state, completing with null if it has no art.
+    // Already complete when the sprite is cached.
+    CompletableFuture<SpriteSheet> sprite(String petType, PetSimulation.State state) {
+        String key = petType + "/" + state.getId();
+        synchronized (this) {
+            File file = resolved.get(key);
+            if (file != null) {
+                return file == NO_FILE ? CompletableFuture.completedFuture(null) : sprite(file, SPRITE_SIZE);
+            }
+        }
+        // Looking for the file touches the disk, so that happens on the loader too
+        return CompletableFuture.supplyAsync(() -> resolve(petType, state), loader).thenCompose(file -> {
+            synchronized (this) {
+                resolved.put(key, file != null ? file : NO_FILE);
+            }
+            return file == null ? CompletableFuture.completedFuture(null) : sprite(file, SPRITE_SIZE);
+        });
+    }
+
+    // Sprite of an image file at most size x size, e.g. for a preview; completes
+    // with null if it cannot be decoded
+    synchronized CompletableFuture<SpriteSheet> sprite(File file, int size) {
+        String path = file.getPath() + "@" + size;
+        Entry entry = entries.get(path);
+        if (entry != null) {
+            return CompletableFuture.completedFuture(entry.sprite);
+        }
+        CompletableFuture<SpriteSheet> loading = pending.get(path);
+        if (loading == null) {
+            loading = CompletableFuture.supplyAsync(() -> load(file, size), loader);
+            pending.put(path, loading);
+            loading.whenComplete((sprite, error) -> {
+                synchronized (this) {
+                    pending.remove(path);
+                    if (sprite != null) {
+                        put(path, sprite);
+                    }
+                }
+            });
+        }
+        return loading;
+    }
+
+    // Gray card with the text on it, for pets without art. Must be called on the FX thread.
+    Image placeholder(String text) {
+        String key = "placeholder/" + text;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                return entry.sprite.getImage();
+            }
+        }
+        Rectangle card = new Rectangle(SPRITE_SIZE, SPRITE_SIZE);
+        card.setFill(Color.LIGHTGRAY);
+        card.setStroke(Color.BLACK);
+        card.setStrokeWidth(2);
+
+        Label label = new Label(text);
+        label.setStyle("-fx-font-size: 24px; -fx-font-weight: bold;");
+
+        Image image = new StackPane(card, label).snapshot(null, null);
+        put(key, SpriteSheet.still(image));
+        return image;
+    }
+
+    synchronized long size() {
+        return totalBytes;
+    }
+
+    private synchronized void put(String key, SpriteSheet sprite) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            totalBytes -= old.bytes;
+        }
+        long bytes = sprite.bytes();
+        if (bytes > maxBytes) {
+            return;
+        }
+        entries.put(key, new Entry(sprite, bytes));
+        totalBytes += bytes;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    private static SpriteSheet load(File file, int size) {
+        String name = file.getName();
+        try {
+            SpriteSheet sheet = SpriteSheet.load(name.substring(0, name.lastIndexOf('.')), size);
+            if (sheet != null) {
+                return sheet;
+            }
+        } catch (IOException e) {
+            // Fall back to decoding the image itself
+            e.printStackTrace();
+        }
+
+        // Scale while decoding so a large source never sits in memory at full size
+        Image image = new Image(file.toURI().toString(), size, size, true, true, false);
+        if (image.isError()) {
+            image.getException().printStackTrace();
+            return null;
+        }
+        return SpriteSheet.still(image);
+    }
+
+    // The state's own image if there is one, otherwise the pet's catalog image
+    private static File resolve(String petType, PetSimulation.State state) {
+        String suffix = state == PetSimulation.State.NORMAL ? "" : "_" + state.getId();
+        for (String dir : TYPE_SPRITE_DIRS) {
+            File file = new File(dir, petType + suffix + ".png");
+            if (file.exists()) {
+                return file;
+            }
+        }
+
+        File base = PetCatalog.image(petType);
+        if (base == null || suffix.isEmpty()) {
+            return base;
+        }
+        String name = base.getName();
+        int dot = name.lastIndexOf('.');
+        File variant = new File(base.getParentFile(), name.substring(0, dot) + suffix + name.substring(dot));
+        return variant.exists() ? variant : base;
+    }
+}
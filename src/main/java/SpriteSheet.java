@@ -0,0 +1,89 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * Frames of one sprite at one display size, laid out in a grid on a single
+ * image as SpriteSheetBuilder writes them. Images without a sheet are held
+ * as a single frame covering the whole image.
+ */
+final class SpriteSheet {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Image image;
+    private final int frameWidth;
+    private final int frameHeight;
+    private final int columns;
+    private final int[] delays;
+
+    private SpriteSheet(Image image, int frameWidth, int frameHeight, int columns, int[] delays) {
+        this.image = image;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.columns = columns;
+        this.delays = delays;
+    }
+
+    // A still image, or a GIF that JavaFX animates itself, shown whole
+    static SpriteSheet still(Image image) {
+        return new SpriteSheet(image, 0, 0, 1, new int[] {0});
+    }
+
+    // The sheet built for the named image at that size, or null if the build did not make one
+    static SpriteSheet load(String name, int size) throws IOException {
+        String base = "/sprites/" + name + "_" + size;
+        URL sheet = SpriteSheet.class.getResource(base + ".png");
+        URL info = SpriteSheet.class.getResource(base + ".json");
+        if (sheet == null || info == null) {
+            return null;
+        }
+        JsonNode node;
+        try (InputStream in = info.openStream()) {
+            node = mapper.readTree(in);
+        }
+        int[] delays = new int[node.get("delays").size()];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = node.get("delays").get(i).asInt();
+        }
+        Image image = new Image(sheet.toString(), false);
+        if (image.isError()) {
+            throw new IOException("Failed to decode " + sheet, image.getException());
+        }
+        return new SpriteSheet(image, node.get("frame_width").asInt(), node.get("frame_height").asInt(),
+            node.get("columns").asInt(), delays);
+    }
+
+    Image getImage() {
+        return image;
+    }
+
+    int frameCount() {
+        return delays.length;
+    }
+
+    // How long the frame stays on screen, in milliseconds
+    int delay(int frame) {
+        return delays[frame];
+    }
+
+    // Part of the sheet that holds the frame, for ImageView.setViewport; null for a still
+    Rectangle2D viewport(int frame) {
+        if (frameWidth == 0) {
+            return null;
+        }
+        return new Rectangle2D((frame % columns) * frameWidth, (frame / columns) * frameHeight,
+            frameWidth, frameHeight);
+    }
+
+    // Decoded size of the sheet, for cache budgets
+    long bytes() {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+}
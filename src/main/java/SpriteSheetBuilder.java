@@ -0,0 +1,207 @@
+package com.nudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build step that turns each animated GIF into sprite sheets, run by Maven in
+ * process-classes (see pom.xml):
+ *
+ *   java com.nudge.SpriteSheetBuilder <image dir> <output dir> <size>...
+ *
+ * For every GIF and size it writes <name>_<size>.png, the fully composed
+ * frames scaled to fit size x size and laid out in a grid, and
+ * <name>_<size>.json with the frame size, columns and per-frame delays.
+ * SpriteAnimator plays them without decoding or scaling anything per frame.
+ * Sheets newer than their GIF are left alone.
+ */
+public class SpriteSheetBuilder {
+    private static final int DEFAULT_DELAY_MILLIS = 100;
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // One composed frame of the animation and how long it stays on screen
+    private static class Frame {
+        final BufferedImage image;
+        final int delayMillis;
+
+        Frame(BufferedImage image, int delayMillis) {
+            this.image = image;
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: SpriteSheetBuilder <image dir> <output dir> <size>...");
+            System.exit(2);
+        }
+        File imageDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+        int[] sizes = new int[args.length - 2];
+        for (int i = 2; i < args.length; i++) {
+            sizes[i - 2] = Integer.parseInt(args[i]);
+        }
+
+        File[] gifs = imageDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".gif"));
+        if (gifs == null) {
+            System.out.println("No images in " + imageDir + "; no sprite sheets built");
+            return;
+        }
+        outputDir.mkdirs();
+        int built = 0;
+        for (File gif : gifs) {
+            built += build(gif, outputDir, sizes);
+        }
+        System.out.println("Built " + built + " sprite sheet(s) in " + outputDir);
+    }
+
+    // Write the sheets for one GIF that are missing or older than it
+    private static int build(File gif, File outputDir, int[] sizes) throws IOException {
+        String name = gif.getName().substring(0, gif.getName().lastIndexOf('.'));
+        List<Frame> frames = null;
+        int built = 0;
+        for (int size : sizes) {
+            File sheetFile = new File(outputDir, name + "_" + size + ".png");
+            File infoFile = new File(outputDir, name + "_" + size + ".json");
+            if (sheetFile.lastModified() > gif.lastModified() && infoFile.lastModified() > gif.lastModified()) {
+                continue;
+            }
+            if (frames == null) {
+                frames = readFrames(gif);
+            }
+            writeSheet(frames, size, sheetFile, infoFile);
+            built++;
+        }
+        return built;
+    }
+
+    private static void writeSheet(List<Frame> frames, int size, File sheetFile, File infoFile) throws IOException {
+        BufferedImage first = frames.get(0).image;
+        double factor = (double) size / Math.max(first.getWidth(), first.getHeight());
+        int frameWidth = Math.max(1, (int) Math.round(first.getWidth() * factor));
+        int frameHeight = Math.max(1, (int) Math.round(first.getHeight() * factor));
+        // A square-ish grid keeps the sheet inside common texture size limits
+        int columns = (int) Math.ceil(Math.sqrt(frames.size()));
+        int rows = (frames.size() + columns - 1) / columns;
+
+        BufferedImage sheet = new BufferedImage(frameWidth * columns, frameHeight * rows, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sheet.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        ArrayNode delays = mapper.createArrayNode();
+        for (int i = 0; i < frames.size(); i++) {
+            int x = (i % columns) * frameWidth;
+            int y = (i / columns) * frameHeight;
+            g.drawImage(frames.get(i).image, x, y, frameWidth, frameHeight, null);
+            delays.add(frames.get(i).delayMillis);
+        }
+        g.dispose();
+        ImageIO.write(sheet, "png", sheetFile);
+
+        ObjectNode info = mapper.createObjectNode();
+        info.put("frame_width", frameWidth);
+        info.put("frame_height", frameHeight);
+        info.put("columns", columns);
+        info.set("delays", delays);
+        mapper.writeValue(infoFile, info);
+    }
+
+    // Decode every frame and compose it onto the logical screen, honouring
+    // each frame's offset and disposal method, so frames can be shown alone
+    private static List<Frame> readFrames(File gif) throws IOException {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(gif)) {
+            reader.setInput(in);
+            int count = reader.getNumImages(true);
+            int[] screen = screenSize(reader);
+
+            BufferedImage canvas = new BufferedImage(screen[0], screen[1], BufferedImage.TYPE_INT_ARGB);
+            List<Frame> frames = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                BufferedImage image = reader.read(i);
+                Node control = child(reader.getImageMetadata(i), "GraphicControlExtension");
+                Node descriptor = child(reader.getImageMetadata(i), "ImageDescriptor");
+                int left = intAttribute(descriptor, "imageLeftPosition", 0);
+                int top = intAttribute(descriptor, "imageTopPosition", 0);
+                String disposal = control == null ? "none" : attribute(control, "disposalMethod", "none");
+                int delay = intAttribute(control, "delayTime", 0) * 10; // hundredths of a second
+
+                BufferedImage previous = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+                Graphics2D g = canvas.createGraphics();
+                g.drawImage(image, left, top, null);
+                g.dispose();
+                frames.add(new Frame(copy(canvas), delay > 0 ? delay : DEFAULT_DELAY_MILLIS));
+
+                if (disposal.equals("restoreToBackgroundColor")) {
+                    Graphics2D clear = canvas.createGraphics();
+                    clear.setComposite(AlphaComposite.Clear);
+                    clear.fillRect(left, top, image.getWidth(), image.getHeight());
+                    clear.dispose();
+                } else if (previous != null) {
+                    canvas = previous;
+                }
+            }
+            if (frames.isEmpty()) {
+                throw new IOException("No frames in " + gif);
+            }
+            return frames;
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static int[] screenSize(ImageReader reader) throws IOException {
+        IIOMetadata stream = reader.getStreamMetadata();
+        Node descriptor = stream == null ? null : child(stream, "LogicalScreenDescriptor");
+        int width = intAttribute(descriptor, "logicalScreenWidth", 0);
+        int height = intAttribute(descriptor, "logicalScreenHeight", 0);
+        if (width <= 0 || height <= 0) {
+            width = reader.getWidth(0);
+            height = reader.getHeight(0);
+        }
+        return new int[] {width, height};
+    }
+
+    private static Node child(IIOMetadata metadata, String name) {
+        Node root = metadata.getAsTree(metadata.getNativeMetadataFormatName());
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeName().equals(name)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static String attribute(Node node, String name, String fallback) {
+        Node value = node == null ? null : node.getAttributes().getNamedItem(name);
+        return value == null ? fallback : value.getNodeValue();
+    }
+
+    private static int intAttribute(Node node, String name, int fallback) {
+        String value = attribute(node, name, null);
+        return value == null ? fallback : Integer.parseInt(value);
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = copy.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return copy;
+    }
+}
@@ -0,0 +1,315 @@
+package com.nudge;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Task logs stored as one rolling segment per player and month:
+ *   tasks/<player_id>/<yyyy-MM>.log   one JSON record per line
+ *   tasks/<player_id>/<yyyy-MM>.idx   12-byte entries: epoch day (int), line offset (long)
+ * A record holds the tasks completed on one day. Appending adds to that day;
+ * a record marked "replace" discards what was logged for the day before it.
+ *
+ * Range queries read whole segments for months fully inside the range and
+ * use the index to seek straight to the matching lines in the edge months.
+ * Both readers skip a line that is unfinished or does not parse. An append
+ * first cuts an unfinished line left by a crash off the segment and its
+ * index, and indexes any complete lines whose entries never got written.
+ * Deleting a player removes one directory.
+ */
+class TaskLogStore {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> RECORD = new TypeReference<>() { };
+    private static final int INDEX_ENTRY_BYTES = 12;
+
+    private final File rootDir;
+
+    TaskLogStore(File rootDir) {
+        this.rootDir = rootDir;
+    }
+
+    // Log a single completed task on the given day
+    synchronized void append(String playerId, LocalDate date, Map<String, Object> task) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("date", date.toString());
+        record.put("tasks_completed", List.of(task));
+        writeRecord(playerId, date, record);
+    }
+
+    // Store the full list of tasks for a day, replacing anything logged for it earlier
+    synchronized void replaceDay(String playerId, LocalDate date, List<?> tasks) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("date", date.toString());
+        record.put("tasks_completed", tasks);
+        record.put("replace", true);
+        writeRecord(playerId, date, record);
+    }
+
+    // Day logs between from and to (inclusive) that have at least one record, oldest first
+    synchronized List<Map<String, Object>> load(String playerId, LocalDate from, LocalDate to) throws IOException {
+        TreeMap<LocalDate, List<Object>> days = new TreeMap<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            File segment = segmentFile(playerId, month);
+            if (!segment.exists()) {
+                continue;
+            }
+            boolean wholeMonth = !month.atDay(1).isBefore(from) && !month.atEndOfMonth().isAfter(to);
+            if (wholeMonth) {
+                readSegment(segment, from, to, days);
+            } else {
+                readIndexed(segment, indexFile(playerId, month), from, to, days);
+            }
+        }
+
+        List<Map<String, Object>> logs = new ArrayList<>(days.size());
+        for (Map.Entry<LocalDate, List<Object>> day : days.entrySet()) {
+            Map<String, Object> log = new LinkedHashMap<>();
+            log.put("player_id", playerId);
+            log.put("date", day.getKey().toString());
+            log.put("tasks_completed", day.getValue());
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    synchronized void deletePlayer(String playerId) {
+        File[] files = playerDir(playerId).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        playerDir(playerId).delete();
+    }
+
+    private void writeRecord(String playerId, LocalDate date, Map<String, Object> record) throws IOException {
+        YearMonth month = YearMonth.from(date);
+        File segment = segmentFile(playerId, month);
+        segment.getParentFile().mkdirs();
+        repair(segment, indexFile(playerId, month));
+
+        long offset = segment.length();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(segment, true))) {
+            out.write(mapper.writeValueAsBytes(record));
+            out.write('\n');
+        }
+        try (DataOutputStream index = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile(playerId, month), true)))) {
+            index.writeInt((int) date.toEpochDay());
+            index.writeLong(offset);
+        }
+    }
+
+    // Truncate an unfinished last line, and any index entries pointing at or
+    // past it or cut short, so the next record does not get glued onto a
+    // fragment. Then index the complete lines after the last entry.
+    private static void repair(File segment, File index) throws IOException {
+        long length = segment.length();
+        long end = length;
+        if (length > 0) {
+            try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+                while (end > 0) {
+                    file.seek(end - 1);
+                    if (file.read() == '\n') {
+                        break;
+                    }
+                    end--;
+                }
+                if (end < length) {
+                    file.setLength(end);
+                }
+            }
+        }
+
+        if (index.exists() && (end < length || index.length() % INDEX_ENTRY_BYTES != 0)) {
+            try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+                long entries = file.length() / INDEX_ENTRY_BYTES;
+                long keep = 0;
+                while (keep < entries) {
+                    file.seek(keep * INDEX_ENTRY_BYTES + 4);
+                    if (file.readLong() >= end) {
+                        break;
+                    }
+                    keep++;
+                }
+                file.setLength(keep * INDEX_ENTRY_BYTES);
+            }
+        }
+        if (end > 0) {
+            indexTail(segment, index, end);
+        }
+    }
+
+    // Add index entries for lines an append wrote before stopping short of
+    // its own entry, so readIndexed can seek to them like any other
+    private static void indexTail(File segment, File index, long end) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+            long entries = index.exists() ? index.length() / INDEX_ENTRY_BYTES : 0;
+            if (entries > 0) {
+                try (RandomAccessFile in = new RandomAccessFile(index, "r")) {
+                    in.seek((entries - 1) * INDEX_ENTRY_BYTES + 4);
+                    file.seek(in.readLong());
+                }
+                readLine(file); // the last indexed line
+            }
+            if (file.getFilePointer() >= end) {
+                return;
+            }
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(index, true)))) {
+                long offset = file.getFilePointer();
+                String line;
+                while ((line = readLine(file)) != null) {
+                    LocalDate date = recordDate(line);
+                    if (date != null) {
+                        out.writeInt((int) date.toEpochDay());
+                        out.writeLong(offset);
+                    }
+                    offset = file.getFilePointer();
+                }
+            }
+        }
+    }
+
+    private static void readSegment(File segment, LocalDate from, LocalDate to,
+                                    Map<LocalDate, List<Object>> days) throws IOException {
+        byte[] data = Files.readAllBytes(segment.toPath());
+        int start = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == '\n') {
+                addRecord(new String(data, start, i - start, StandardCharsets.UTF_8), from, to, days);
+                start = i + 1;
+            }
+        }
+        // Anything after the last newline is an unfinished append
+    }
+
+    // Seek to the indexed lines for days in range. Lines past the last index
+    // entry (an append interrupted before its index entry was written) are
+    // scanned directly so nothing is lost.
+    private static void readIndexed(File segment, File index, LocalDate from, LocalDate to,
+                                    Map<LocalDate, List<Object>> days) throws IOException {
+        if (!index.exists()) {
+            readSegment(segment, from, to, days);
+            return;
+        }
+
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        List<Long> offsets = new ArrayList<>();
+        long lastIndexed = -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+            long entries = index.length() / INDEX_ENTRY_BYTES;
+            for (long i = 0; i < entries; i++) {
+                int day = in.readInt();
+                long offset = in.readLong();
+                if (day >= fromDay && day <= toDay) {
+                    offsets.add(offset);
+                }
+                lastIndexed = Math.max(lastIndexed, offset);
+            }
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+            for (long offset : offsets) {
+                file.seek(offset);
+                String line = readLine(file);
+                if (line != null) {
+                    addRecord(line, from, to, days);
+                }
+            }
+
+            file.seek(Math.max(lastIndexed, 0));
+            if (lastIndexed >= 0) {
+                readLine(file); // already covered by the index
+            }
+            String line;
+            while ((line = readLine(file)) != null) {
+                addRecord(line, from, to, days);
+            }
+        }
+    }
+
+    private static void addRecord(String line, LocalDate from, LocalDate to, Map<LocalDate, List<Object>> days) {
+        Map<String, Object> record = parse(line);
+        LocalDate date = record != null ? recordDate(record) : null;
+        if (date == null || date.isBefore(from) || date.isAfter(to)) {
+            return;
+        }
+        List<Object> tasks = days.computeIfAbsent(date, d -> new ArrayList<>());
+        if (Boolean.TRUE.equals(record.get("replace"))) {
+            tasks.clear();
+        }
+        Object completed = record.get("tasks_completed");
+        if (completed instanceof List) {
+            tasks.addAll((List<?>) completed);
+        }
+    }
+
+    // The record on a line, or null for a torn line from an interrupted append
+    private static Map<String, Object> parse(String line) {
+        try {
+            return mapper.readValue(line, RECORD);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate recordDate(String line) {
+        Map<String, Object> record = parse(line);
+        return record != null ? recordDate(record) : null;
+    }
+
+    // The record's day, or null if it has none or it is not a date
+    private static LocalDate recordDate(Map<String, Object> record) {
+        Object date = record.get("date");
+        if (!(date instanceof String)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse((String) date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // UTF-8 line at the current position, or null at end of file or if the
+    // line is unfinished
+    private static String readLine(RandomAccessFile file) throws IOException {
+        long start = file.getFilePointer();
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = file.read(buffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    line.write(buffer, 0, i);
+                    file.seek(start + line.size() + 1);
+                    return line.toString(StandardCharsets.UTF_8);
+                }
+            }
+            line.write(buffer, 0, read);
+        }
+        return null;
+    }
+
+    private File playerDir(String playerId) {
+        return new File(rootDir, playerId);
+    }
+
+    private File segmentFile(String playerId, YearMonth month) {
+        return new File(playerDir(playerId), month + ".log");
+    }
+
+    private File indexFile(String playerId, YearMonth month) {
+        return new File(playerDir(playerId), month + ".idx");
+    }
+}
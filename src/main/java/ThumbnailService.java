@@ -0,0 +1,122 @@
+package com.nudge;
+
+import javafx.scene.image.Image;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Small still thumbnails of the pet images for list screens. A thumbnail is
+ * the source's first frame scaled down and saved as PNG in a cache directory,
+ * named after a hash of the source file, so it is made once and only made
+ * again when the art changes. Everything runs on a background thread; callers
+ * get a future and show a placeholder until it completes.
+ */
+class ThumbnailService {
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "nudge-thumbnails");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // One thumbnail per pet type and size for the life of the app
+    private static final Map<String, CompletableFuture<Image>> thumbnails = new ConcurrentHashMap<>();
+
+    private ThumbnailService() {
+    }
+
+    // Thumbnail of the pet type's image at most size x size, or null if the type has no image
+    static CompletableFuture<Image> thumbnail(String petType, int size) {
+        return thumbnails.computeIfAbsent(petType + "/" + size, key -> {
+            File source = PetCatalog.image(petType);
+            return source == null ? CompletableFuture.completedFuture(null) : still(source, size);
+        });
+    }
+
+    // Thumbnail of any image file, loaded fresh each call for callers that keep
+    // their own cache; completes with null if the image cannot be read
+    static CompletableFuture<Image> still(File source, int size) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                File file = thumbnailFile(source, size);
+                return new Image(file.toURI().toString());
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }, worker);
+    }
+
+    // The cached thumbnail file for a source image, made first if needed
+    static File thumbnailFile(File source, int size) throws IOException {
+        File file = new File(JsonManager.thumbnailDir(), hash(source) + "_" + size + ".png");
+        if (file.exists()) {
+            return file;
+        }
+
+        // ImageIO reads the first frame of an animated GIF only
+        BufferedImage image = ImageIO.read(source);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + source);
+        }
+        BufferedImage thumbnail = scale(image, size);
+
+        // Write beside the target and move into place, so a half-written file is never served
+        file.getParentFile().mkdirs();
+        File temp = File.createTempFile("thumb", ".tmp", file.getParentFile());
+        try {
+            ImageIO.write(thumbnail, "png", temp);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temp.delete();
+        }
+        return file;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int size) {
+        double factor = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    // First 128 bits of the source's SHA-256, as hex
+    private static String hash(File source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream in = Files.newInputStream(source.toPath())) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+}
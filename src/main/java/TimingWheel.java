@@ -0,0 +1,222 @@
+package com.nudge;
+
+/**
+ * Hashed timing wheel driven by simulation time rather than the wall clock.
+ * The wheel holds the timers due in the current lap of WHEEL_SIZE ticks, one
+ * slot per tick, and a bitmap of the slots in use; timers due in later laps
+ * wait in an overflow list and move onto the wheel when their lap comes round.
+ * Scheduling and cancelling are O(1), advancing one tick only looks at a
+ * single slot, and longer jumps, such as offline catch-up, find the next
+ * occupied slot by scanning the bitmap a word at a time.
+ *
+ * Not thread-safe: use it from the thread that owns the simulation.
+ */
+class TimingWheel {
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int OVERFLOW = -1;
+
+    private final long origin;
+    private final long tickMillis;
+    private final Timeout[] slots = new Timeout[WHEEL_SIZE];
+    private final long[] occupied = new long[WHEEL_SIZE / 64];
+    private long currentTick;
+    private int pending;
+
+    // Timers due after the current lap, unordered
+    private Timeout overflow;
+    private long overflowMin = Long.MAX_VALUE;
+    private boolean overflowMinValid = true;
+
+    static final class Timeout {
+        private final TimingWheel wheel;
+        private final long deadlineTick;
+        private final Runnable task;
+        private int slot;
+        private Timeout prev;
+        private Timeout next;
+        private boolean done;
+
+        private Timeout(TimingWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        // Returns false if the timer already fired or was cancelled
+        boolean cancel() {
+            if (done) {
+                return false;
+            }
+            wheel.unlink(this);
+            done = true;
+            wheel.pending--;
+            return true;
+        }
+
+        boolean isPending() {
+            return !done;
+        }
+    }
+
+    // Ticks happen at origin, origin + tickMillis, ...
+    TimingWheel(long origin, long tickMillis) {
+        this.origin = origin;
+        this.tickMillis = tickMillis;
+    }
+
+    // Run the task on the first tick at or after the given time
+    Timeout scheduleAt(long timeMillis, Runnable task) {
+        long deadlineTick = Math.floorDiv(timeMillis - origin + tickMillis - 1, tickMillis);
+        // Deadlines already passed fire on the next tick
+        deadlineTick = Math.max(deadlineTick, currentTick + 1);
+
+        Timeout timeout = new Timeout(this, deadlineTick, task);
+        link(timeout);
+        pending++;
+        return timeout;
+    }
+
+    Timeout schedule(long delayMillis, Runnable task) {
+        return scheduleAt(time() + delayMillis, task);
+    }
+
+    // Fire every timer due up to and including the tick at timeMillis
+    void advanceTo(long timeMillis) {
+        long targetTick = Math.floorDiv(timeMillis - origin, tickMillis);
+        while (currentTick < targetTick) {
+            long next = earliestDeadline();
+            if (next > targetTick) {
+                moveTo(targetTick);
+                return;
+            }
+            moveTo(next);
+            expire(next);
+        }
+    }
+
+    // Time of the tick the wheel has reached; tasks read it to learn when they fired
+    long time() {
+        return origin + currentTick * tickMillis;
+    }
+
+    int pending() {
+        return pending;
+    }
+
+    // Time of the tick the earliest pending timer fires on, or Long.MAX_VALUE if none
+    long nextDeadline() {
+        long tick = earliestDeadline();
+        return tick == Long.MAX_VALUE ? Long.MAX_VALUE : origin + tick * tickMillis;
+    }
+
+    private static long lap(long tick) {
+        return Math.floorDiv(tick, WHEEL_SIZE);
+    }
+
+    private void moveTo(long tick) {
+        boolean newLap = lap(tick) != lap(currentTick);
+        currentTick = tick;
+        if (newLap) {
+            cascade();
+        }
+    }
+
+    // Move the overflow timers due in the current lap onto the wheel
+    private void cascade() {
+        long lap = lap(currentTick);
+        Timeout timeout = overflow;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (lap(timeout.deadlineTick) == lap) {
+                unlink(timeout);
+                link(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void expire(long tick) {
+        int slot = (int) (tick & MASK);
+        // Every timer in the slot is due on this tick. Tasks can cancel others
+        // here but not add any, since new deadlines are always in the future.
+        while (slots[slot] != null) {
+            Timeout timeout = slots[slot];
+            unlink(timeout);
+            timeout.done = true;
+            pending--;
+            timeout.task.run();
+        }
+    }
+
+    private void link(Timeout timeout) {
+        if (lap(timeout.deadlineTick) == lap(currentTick)) {
+            int slot = (int) (timeout.deadlineTick & MASK);
+            timeout.slot = slot;
+            timeout.next = slots[slot];
+            if (slots[slot] != null) {
+                slots[slot].prev = timeout;
+            }
+            slots[slot] = timeout;
+            occupied[slot >>> 6] |= 1L << slot;
+        } else {
+            timeout.slot = OVERFLOW;
+            timeout.next = overflow;
+            if (overflow != null) {
+                overflow.prev = timeout;
+            }
+            overflow = timeout;
+            if (overflowMinValid) {
+                overflowMin = Math.min(overflowMin, timeout.deadlineTick);
+            }
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        int slot = timeout.slot;
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else if (slot == OVERFLOW) {
+            overflow = timeout.next;
+        } else {
+            slots[slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+
+        if (slot == OVERFLOW) {
+            if (timeout.deadlineTick == overflowMin) {
+                overflowMinValid = false;
+            }
+        } else if (slots[slot] == null) {
+            occupied[slot >>> 6] &= ~(1L << slot);
+        }
+    }
+
+    private long earliestDeadline() {
+        // Timers on the wheel all fire in this lap, before any in the overflow
+        int from = (int) (currentTick & MASK) + 1;
+        for (int word = from >>> 6; word < occupied.length; word++) {
+            long bits = occupied[word];
+            if (word == from >>> 6) {
+                bits &= -1L << from;
+            }
+            if (bits != 0) {
+                int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return currentTick - (currentTick & MASK) + slot;
+            }
+        }
+
+        if (!overflowMinValid) {
+            overflowMin = Long.MAX_VALUE;
+            for (Timeout timeout = overflow; timeout != null; timeout = timeout.next) {
+                overflowMin = Math.min(overflowMin, timeout.deadlineTick);
+            }
+            overflowMinValid = true;
+        }
+        return overflowMin;
+    }
+}
@@ -1,5 +1,6 @@
 package com.nudge;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,9 +16,23 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.util.*;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class loadGame {
-    private List<Map<String, Object>> savedGames;
+    // Save files are read off the FX thread so the screen appears immediately
+    private static final ExecutorService loadExecutor = Executors.newFixedThreadPool(
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), r -> {
+            Thread thread = new Thread(r, "nudge-load-game");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private static final int THUMBNAIL_SIZE = 50;
+
+    private final List<CompletableFuture<?>> pendingLoads = new ArrayList<>();
+    private volatile boolean cancelled;
 
     public Scene createScene(Stage primaryStage) {
         BorderPane root = new BorderPane();
@@ -43,79 +58,32 @@ public class loadGame {
         VBox savedGamesBox = new VBox(10);
         savedGamesBox.setPadding(new Insets(10));
 
-        // Load saved games from JSON files
-        savedGames = JsonManager.listSavedGames();
-
-        // Create rows for each saved game
-        int gameNumber = 1;
-        for (Map<String, Object> game : savedGames) {
-            HBox gameRow = new HBox(20);
-            gameRow.setAlignment(Pos.CENTER_LEFT);
-            gameRow.setPadding(new Insets(10));
-            gameRow.setStyle("-fx-border-color: black; -fx-border-width: 1px;");
-
-            // Number label
-            Label numberLabel = new Label(gameNumber + ".");
-            numberLabel.setFont(Font.font("System", FontWeight.BOLD, 18));
-            numberLabel.setMinWidth(30);
-
-            // Load pet image if available
-            ImageView petImage;
-            try {
-                Map<String, Object> petData = JsonManager.loadPetData((String) game.get("player_id"));
-                String petType = (String) petData.get("pet_type");
-                // TODO: Load actual pet image based on type
-                petImage = new ImageView(new Rectangle(50, 50).snapshot(null, null));
-            } catch (Exception e) {
-                petImage = new ImageView(new Rectangle(50, 50).snapshot(null, null));
-            }
-            petImage.setFitWidth(50);
-            petImage.setFitHeight(50);
-
-            // Name label
-            Label nameLabel = new Label((String) game.get("username"));
-            nameLabel.setFont(Font.font("System", 16));
-            nameLabel.setMinWidth(200);
-
-            // Score label
-            Label scoreLabel = new Label("Score: " + getPlayerScore((String) game.get("player_id")));
-            scoreLabel.setFont(Font.font("System", 16));
-            scoreLabel.setMinWidth(100);
-
-            // Delete button
-            Button deleteButton = new Button("🗑️");
-            deleteButton.setStyle("-fx-font-size: 16px; -fx-padding: 5px 10px;");
-            deleteButton.setOnAction(e -> {
-                String playerId = (String) game.get("player_id");
-                showDeleteConfirmation(primaryStage, playerId, gameRow);
-            });
-
-            // Add all elements to the row
-            gameRow.getChildren().addAll(numberLabel, petImage, nameLabel, scoreLabel, deleteButton);
-
-            // Make the row clickable (except for the delete button)
-            final String playerId = (String) game.get("player_id");
-            gameRow.setOnMouseClicked(e -> {
-                if (!(e.getTarget() instanceof Button)) {
-                    loadSavedGame(primaryStage, playerId);
+        // Load saved games in the background; rows appear as each save is read
+        Label statusLabel = new Label("Loading saved games...");
+        statusLabel.setFont(Font.font("System", 16));
+        savedGamesBox.getChildren().add(statusLabel);
+        track(CompletableFuture.supplyAsync(JsonManager::listSavedGames, loadExecutor)
+            .whenComplete((savedGames, error) -> Platform.runLater(() -> {
+                if (cancelled) {
+                    return;
                 }
-            });
-
-            // Add hover effect
-            gameRow.setOnMouseEntered(e -> gameRow
-                    .setStyle("-fx-border-color: black; -fx-border-width: 1px; -fx-background-color: #f0f0f0;"));
-            gameRow.setOnMouseExited(e -> gameRow
-                    .setStyle("-fx-border-color: black; -fx-border-width: 1px; -fx-background-color: transparent;"));
-
-            savedGamesBox.getChildren().add(gameRow);
-            gameNumber++;
-        }
+                if (error != null) {
+                    error.printStackTrace();
+                    statusLabel.setText("Failed to load saved games.");
+                } else if (savedGames.isEmpty()) {
+                    statusLabel.setText("No saved games yet.");
+                } else {
+                    savedGamesBox.getChildren().clear();
+                    showSavedGames(primaryStage, savedGamesBox, savedGames);
+                }
+            })));
 
         scrollPane.setContent(savedGamesBox);
         contentBox.getChildren().add(scrollPane);
 
         // Set up back button action
         backButton.setOnAction(e -> {
+            cancelLoading();
             Scene mainMenuScene = new mainmenu().createScene(primaryStage);
             primaryStage.setScene(mainMenuScene);
         });
@@ -126,6 +94,115 @@ public class loadGame {
         return scene;
     }
 
+    // Add a placeholder per save in list order, then read the saves in parallel
+    // and swap each placeholder for its row as soon as that save is ready
+    private void showSavedGames(Stage primaryStage, VBox savedGamesBox, List<SavedGame> savedGames) {
+        int gameNumber = 1;
+        for (SavedGame game : savedGames) {
+            HBox placeholder = createRowContainer();
+            Label numberLabel = createNumberLabel(gameNumber);
+            placeholder.getChildren().addAll(numberLabel, new Label("Loading..."));
+            savedGamesBox.getChildren().add(placeholder);
+
+            final int number = gameNumber;
+            track(CompletableFuture.supplyAsync(() -> JsonManager.completeSavedGame(game), loadExecutor)
+                .whenComplete((loaded, error) -> Platform.runLater(() -> {
+                    int index = savedGamesBox.getChildren().indexOf(placeholder);
+                    if (cancelled || index < 0) {
+                        return;
+                    }
+                    SavedGame row = error == null ? loaded : game;
+                    savedGamesBox.getChildren().set(index, createGameRow(primaryStage, row, number));
+                })));
+            gameNumber++;
+        }
+    }
+
+    private HBox createGameRow(Stage primaryStage, SavedGame game, int gameNumber) {
+        HBox gameRow = createRowContainer();
+
+        // Number label
+        Label numberLabel = createNumberLabel(gameNumber);
+
+        // Pet thumbnail; a blank square until the cached thumbnail has loaded
+        String petType = game.getPetType();
+        ImageView petImage = new ImageView(new Rectangle(THUMBNAIL_SIZE, THUMBNAIL_SIZE).snapshot(null, null));
+        petImage.setFitWidth(THUMBNAIL_SIZE);
+        petImage.setFitHeight(THUMBNAIL_SIZE);
+        petImage.setPreserveRatio(true);
+        track(ThumbnailService.thumbnail(petType, THUMBNAIL_SIZE)
+            .thenAccept(thumbnail -> Platform.runLater(() -> {
+                if (!cancelled && thumbnail != null) {
+                    petImage.setImage(thumbnail);
+                }
+            })));
+
+        // Name label
+        Label nameLabel = new Label(game.getUsername());
+        nameLabel.setFont(Font.font("System", 16));
+        nameLabel.setMinWidth(200);
+
+        // Score label
+        Label scoreLabel = new Label("Score: " + game.getScore());
+        scoreLabel.setFont(Font.font("System", 16));
+        scoreLabel.setMinWidth(100);
+
+        // Delete button
+        Button deleteButton = new Button("🗑️");
+        deleteButton.setStyle("-fx-font-size: 16px; -fx-padding: 5px 10px;");
+        deleteButton.setOnAction(e -> {
+            String playerId = game.getPlayerId();
+            showDeleteConfirmation(primaryStage, playerId, gameRow);
+        });
+
+        // Add all elements to the row
+        gameRow.getChildren().addAll(numberLabel, petImage, nameLabel, scoreLabel, deleteButton);
+
+        // Make the row clickable (except for the delete button)
+        final String playerId = game.getPlayerId();
+        gameRow.setOnMouseClicked(e -> {
+            if (!(e.getTarget() instanceof Button)) {
+                loadSavedGame(primaryStage, playerId);
+            }
+        });
+
+        // Add hover effect
+        gameRow.setOnMouseEntered(e -> gameRow
+                .setStyle("-fx-border-color: black; -fx-border-width: 1px; -fx-background-color: #f0f0f0;"));
+        gameRow.setOnMouseExited(e -> gameRow
+                .setStyle("-fx-border-color: black; -fx-border-width: 1px; -fx-background-color: transparent;"));
+
+        return gameRow;
+    }
+
+    private HBox createRowContainer() {
+        HBox gameRow = new HBox(20);
+        gameRow.setAlignment(Pos.CENTER_LEFT);
+        gameRow.setPadding(new Insets(10));
+        gameRow.setStyle("-fx-border-color: black; -fx-border-width: 1px;");
+        return gameRow;
+    }
+
+    private Label createNumberLabel(int gameNumber) {
+        Label numberLabel = new Label(gameNumber + ".");
+        numberLabel.setFont(Font.font("System", FontWeight.BOLD, 18));
+        numberLabel.setMinWidth(30);
+        return numberLabel;
+    }
+
+    private void track(CompletableFuture<?> load) {
+        pendingLoads.add(load);
+    }
+
+    // Stop delivering rows once the user leaves the screen
+    private void cancelLoading() {
+        cancelled = true;
+        for (CompletableFuture<?> load : pendingLoads) {
+            load.cancel(false);
+        }
+        pendingLoads.clear();
+    }
+
     private void showDeleteConfirmation(Stage primaryStage, String playerId, HBox gameRow) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Delete Game");
@@ -160,52 +237,20 @@ public class loadGame {
     }
 
     private void deleteGameFiles(String playerId) throws IOException {
-        // Delete player data file
-        File playerFile = new File("src/main/resources/data/player_" + playerId + ".json");
-        if (playerFile.exists()) {
-            playerFile.delete();
-        }
-
-        // Delete pet data file
-        File petFile = new File("src/main/resources/data/pet_" + playerId + ".json");
-        if (petFile.exists()) {
-            petFile.delete();
-        }
-
-        // Delete score data file
-        File scoreFile = new File("src/main/resources/data/score_" + playerId + ".json");
-        if (scoreFile.exists()) {
-            scoreFile.delete();
-        }
-
-        // Delete any task log files
-        File dataDir = new File("src/main/resources/data/");
-        File[] taskFiles = dataDir.listFiles((dir, name) -> name.startsWith("tasks_" + playerId + "_"));
-        if (taskFiles != null) {
-            for (File file : taskFiles) {
-                file.delete();
-            }
-        }
-    }
-
-    private String getPlayerScore(String playerId) {
-        try {
-            Map<String, Object> scoreData = JsonManager.loadScoreData(playerId);
-            return String.valueOf(scoreData.get("total_score"));
-        } catch (Exception e) {
-            return "0";
-        }
+        // Delete player, pet, score and task log files in whichever format they were saved
+        JsonManager.deleteGameFiles(playerId);
     }
 
     private void loadSavedGame(Stage primaryStage, String playerId) {
+        cancelLoading();
         try {
             // Load the player and pet data
-            Map<String, Object> playerData = JsonManager.loadPlayerData(playerId);
-            Map<String, Object> petData = JsonManager.loadPetData(playerId);
+            PlayerProfile playerData = JsonManager.loadPlayerData(playerId);
+            PetState petData = JsonManager.loadPetData(playerId);
 
             // Get the pet name and type from the loaded data
-            String petName = (String) petData.get("pet_name");
-            String petType = (String) petData.get("pet_type");
+            String petName = petData.getPetName();
+            String petType = petData.getPetType();
 
             // Create and switch to the game page with loaded data
             GamePage gamePage = new GamePage();
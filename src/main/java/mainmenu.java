@@ -106,6 +106,8 @@ public class mainmenu extends Application {
 
     @Override
     public void start(Stage primaryStage) {
+        // Convert saves left in an older format before anything reads them
+        JsonManager.migrateSaveFiles();
         primaryStage.setScene(createScene(primaryStage));
         primaryStage.show();
     }
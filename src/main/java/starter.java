@@ -1,5 +1,8 @@
 package com.nudge;
 
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -11,10 +14,28 @@ import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class starter {
-    private List<Image> images;
+    private static final int PREVIEW_SIZE = 200;
+    private static final int CHOICE_SIZE = 150;
+
+    // Gallery stills (first frame only) at CHOICE_SIZE, least recently shown dropped
+    // first once they pass -Dnudge.gallery.bytes (default 8 MB); each costs at most
+    // size^2 * 4 bytes
+    private static final int GALLERY_CAPACITY = (int) Math.max(1,
+        Long.getLong("nudge.gallery.bytes", 8L * 1024 * 1024) / (CHOICE_SIZE * CHOICE_SIZE * 4L));
+    private static final Map<File, CompletableFuture<Image>> galleryImages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, CompletableFuture<Image>> eldest) {
+            return size() > GALLERY_CAPACITY;
+        }
+    };
+
+    private List<File> pets;
     private ImageView selectedImageView;
+    private SpriteAnimator previewAnimator;
+    private File previewFile; // the pet the preview should show
     private TextField nameField;
     private String selectedPetType = "default"; // Will store the selected pet type
 
@@ -35,30 +56,13 @@ public class starter {
 
         // Create the selected pet display
         selectedImageView = new ImageView();
-        selectedImageView.setFitWidth(200);
-        selectedImageView.setFitHeight(200);
+        selectedImageView.setFitWidth(PREVIEW_SIZE);
+        selectedImageView.setFitHeight(PREVIEW_SIZE);
         selectedImageView.setPreserveRatio(true);
+        previewAnimator = new SpriteAnimator(selectedImageView);
 
-        // Load images from the images directory
-        images = new ArrayList<>();
-        File imageDir = new File("src/main/java/images");
-        if (imageDir.exists() && imageDir.isDirectory()) {
-            File[] files = imageDir.listFiles((dir, name) ->
-                    name.toLowerCase().endsWith(".gif") ||
-                            name.toLowerCase().endsWith(".jpg") ||
-                            name.toLowerCase().endsWith(".webp")
-            );
-            if (files != null) {
-                for (File file : files) {
-                    images.add(new Image(file.toURI().toString()));
-                }
-            }
-        }
-
-        if (!images.isEmpty()) {
-            selectedImageView.setImage(images.get(0));
-            selectedPetType = "type1"; // Set default pet type
-        }
+        // Pets in catalog order, so pet i is pet type i + 1; nothing is decoded yet
+        pets = PetCatalog.images();
 
         // Create name input field
         Label nameLabel = new Label("Name");
@@ -72,32 +76,23 @@ public class starter {
         nameBox.setAlignment(Pos.CENTER);
         nameBox.getChildren().addAll(nameLabel, nameField);
 
-        // Create image selection area
-        HBox imageSelectionBox = new HBox(20);
-        imageSelectionBox.setAlignment(Pos.CENTER);
-
-        for (int i = 0; i < images.size(); i++) {
-            ImageView petImage = new ImageView(images.get(i));
-            petImage.setFitWidth(150);
-            petImage.setFitHeight(150);
-            petImage.setPreserveRatio(true);
-
-            Rectangle frame = new Rectangle(160, 160);
-            frame.setFill(Color.TRANSPARENT);
-            frame.setStroke(Color.BLACK);
-            frame.setStrokeWidth(2);
-
-            javafx.scene.layout.StackPane imageStack = new javafx.scene.layout.StackPane();
-            imageStack.getChildren().addAll(frame, petImage);
-            
-            final int index = i;
-            final String petType = "type" + (i + 1); // Assign type based on index
-            imageStack.setOnMouseClicked(e -> {
-                selectedImageView.setImage(images.get(index));
-                selectedPetType = petType;
-            });
-
-            imageSelectionBox.getChildren().add(imageStack);
+        // Selection strip: a horizontal list only creates cells for the pets in
+        // view, and each cell decodes its image at display size in the background
+        ListView<File> imageSelection = new ListView<>(FXCollections.observableList(pets));
+        imageSelection.setOrientation(Orientation.HORIZONTAL);
+        imageSelection.setFixedCellSize(CHOICE_SIZE + 20);
+        imageSelection.setPrefHeight(CHOICE_SIZE + 40);
+        imageSelection.setMaxWidth(1000);
+        imageSelection.setCellFactory(list -> new PetCell());
+        imageSelection.getSelectionModel().selectedIndexProperty().addListener((obs, oldIndex, index) -> {
+            int i = index.intValue();
+            if (i >= 0) {
+                showPreview(pets.get(i));
+                selectedPetType = PetCatalog.type(i);
+            }
+        });
+        if (!pets.isEmpty()) {
+            imageSelection.getSelectionModel().select(0); // Default pet type
         }
 
         // Create start game button
@@ -105,10 +100,11 @@ public class starter {
         startButton.setStyle("-fx-font-size: 18px; -fx-padding: 10px 30px;");
 
         // Add all components to the main content box
-        contentBox.getChildren().addAll(selectedImageView, nameBox, imageSelectionBox, startButton);
+        contentBox.getChildren().addAll(selectedImageView, nameBox, imageSelection, startButton);
 
         // Set up button actions
         backButton.setOnAction(e -> {
+            previewAnimator.stop();
             Scene tutorialScene = new tutorial().createScene(primaryStage);
             primaryStage.setScene(tutorialScene);
         });
@@ -127,6 +123,7 @@ public class starter {
             GamePage gamePage = new GamePage();
             Scene gameScene = gamePage.createScene(primaryStage, playerId, petName, selectedPetType);
             if (gameScene != null) {
+                previewAnimator.stop();
                 primaryStage.setScene(gameScene);
             }
         });
@@ -141,6 +138,72 @@ public class starter {
         return scene;
     }
 
+    // The pet's sprite at preview size, decoded in the background; the strip's
+    // image stands in until it is ready
+    private void showPreview(File file) {
+        CompletableFuture<SpriteSheet> sprite = SpriteCache.shared().sprite(file, PREVIEW_SIZE);
+        previewFile = file;
+        SpriteSheet cached = sprite.isDone() && !sprite.isCompletedExceptionally() ? sprite.join() : null;
+        if (cached != null) {
+            previewAnimator.show(cached);
+            return;
+        }
+        previewAnimator.show(galleryImage(file).getNow(null));
+        sprite.whenComplete((sheet, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+            } else if (sheet != null && previewFile == file) {
+                previewAnimator.show(sheet);
+            }
+        }));
+    }
+
+    // A still thumbnail rather than the GIF, so an animation's frames never fill the budget
+    private static CompletableFuture<Image> galleryImage(File file) {
+        return galleryImages.computeIfAbsent(file, f -> ThumbnailService.still(f, CHOICE_SIZE));
+    }
+
+    // One pet in the selection strip: a framed image, gray until it has loaded
+    private static class PetCell extends ListCell<File> {
+        private final ImageView petImage = new ImageView();
+        private final Rectangle frame = new Rectangle(CHOICE_SIZE + 10, CHOICE_SIZE + 10);
+        private final StackPane imageStack = new StackPane(frame, petImage);
+
+        PetCell() {
+            petImage.setFitWidth(CHOICE_SIZE);
+            petImage.setFitHeight(CHOICE_SIZE);
+            petImage.setPreserveRatio(true);
+            frame.setStroke(Color.BLACK);
+            frame.setStrokeWidth(2);
+        }
+
+        @Override
+        protected void updateItem(File file, boolean empty) {
+            super.updateItem(file, empty);
+            if (empty || file == null) {
+                petImage.setImage(null);
+                setGraphic(null);
+                return;
+            }
+            CompletableFuture<Image> image = galleryImage(file);
+            showImage(image.getNow(null));
+            if (!image.isDone()) {
+                // Fill in when ready, unless the cell has been reused for another pet
+                image.thenAccept(loaded -> Platform.runLater(() -> {
+                    if (getItem() == file) {
+                        showImage(loaded);
+                    }
+                }));
+            }
+            setGraphic(imageStack);
+        }
+
+        private void showImage(Image image) {
+            petImage.setImage(image);
+            frame.setFill(image == null ? Color.LIGHTGRAY : Color.TRANSPARENT);
+        }
+    }
+
     private void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");